@@ -0,0 +1,25 @@
+package com.upgrad.quora.api.auth;
+
+/**
+ * This class extracts the access token from the value of the "authorization" header.
+ */
+public final class AuthorizationHeader {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private AuthorizationHeader() {
+    }
+
+    /**
+     * The access token is accepted both with and without the "Bearer " prefix, which is only stripped from the start.
+     *
+     * @param authorization - value of the authorization header
+     * @return - the access token
+     */
+    public static String getAccessToken(final String authorization) {
+        if (!authorization.startsWith(BEARER_PREFIX)) {
+            return authorization;
+        }
+        return authorization.substring(BEARER_PREFIX.length());
+    }
+}
@@ -0,0 +1,22 @@
+package com.upgrad.quora.api.auth;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a controller method parameter of type UserAuthTokenEntity which is resolved from the "authorization" header.
+ * The request is rejected before the controller method runs if the user has not signed in or has signed out.
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Authorized {
+
+    /**
+     * Error message returned when the user corresponding to the access token is signed out.
+     */
+    String signedOutMessage() default "User is signed out";
+}
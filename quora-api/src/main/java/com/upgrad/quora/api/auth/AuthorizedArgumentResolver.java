@@ -0,0 +1,57 @@
+package com.upgrad.quora.api.auth;
+
+import com.upgrad.quora.service.business.AuthenticationBusinessService;
+import com.upgrad.quora.service.common.ReplicaRoutingDataSource;
+import com.upgrad.quora.service.entity.UserAuthTokenEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.MethodParameter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.ServletRequestBindingException;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+/**
+ * This resolver authenticates the access token sent in the "authorization" header and injects the resulting
+ * UserAuthTokenEntity, together with the user it was issued to, into the parameters annotated with {@link Authorized}.
+ * The token is resolved at most once per request and kept as a request attribute for the rest of the request.
+ * The user is bound to the thread as the session of the request, so it reads its own writes when replicas are in use.
+ */
+@Component
+public class AuthorizedArgumentResolver implements HandlerMethodArgumentResolver {
+
+    public static final String AUTHORIZED_TOKEN_ATTRIBUTE = AuthorizedArgumentResolver.class.getName() + ".TOKEN";
+
+    private static final String AUTHORIZATION_HEADER = "authorization";
+
+    @Autowired
+    private AuthenticationBusinessService authenticationBusinessService;
+
+    @Override
+    public boolean supportsParameter(final MethodParameter parameter) {
+        return parameter.hasParameterAnnotation(Authorized.class)
+                && UserAuthTokenEntity.class.isAssignableFrom(parameter.getParameterType());
+    }
+
+    @Override
+    public Object resolveArgument(final MethodParameter parameter, final ModelAndViewContainer mavContainer,
+                                  final NativeWebRequest webRequest, final WebDataBinderFactory binderFactory) throws Exception {
+        final Object resolved = webRequest.getAttribute(AUTHORIZED_TOKEN_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (resolved != null) {
+            return resolved;
+        }
+        final String authorization = webRequest.getHeader(AUTHORIZATION_HEADER);
+        if (authorization == null) {
+            throw new ServletRequestBindingException("Missing request header '" + AUTHORIZATION_HEADER + "' for method parameter of type UserAuthTokenEntity");
+        }
+        final Authorized authorized = parameter.getParameterAnnotation(Authorized.class);
+        final UserAuthTokenEntity userAuthTokenEntity = authenticationBusinessService.authenticate(
+                AuthorizationHeader.getAccessToken(authorization), authorized.signedOutMessage());
+        webRequest.setAttribute(AUTHORIZED_TOKEN_ATTRIBUTE, userAuthTokenEntity, RequestAttributes.SCOPE_REQUEST);
+        // The token holds the uuid of its user, so the user, a reference only in stateless mode, is not loaded for it.
+        ReplicaRoutingDataSource.bindSession(userAuthTokenEntity.getUuid());
+        return userAuthTokenEntity;
+    }
+}
@@ -1,16 +1,22 @@
 package com.upgrad.quora.api.config;
 
 
+import com.upgrad.quora.service.entity.UserAuthTokenEntity;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import springfox.documentation.builders.ParameterBuilder;
 import springfox.documentation.builders.PathSelectors;
 import springfox.documentation.builders.RequestHandlerSelectors;
+import springfox.documentation.schema.ModelRef;
 import springfox.documentation.spi.DocumentationType;
 import springfox.documentation.spring.web.plugins.Docket;
 import springfox.documentation.swagger2.annotations.EnableSwagger2;
 
+import java.util.Collections;
+
 /**
  * This Configuration integrates Swagger2 into the existing Spring Boot project.
+ * The authenticated user injected into the controllers is documented as the "authorization" header it is resolved from.
  */
 @Configuration
 @EnableSwagger2
@@ -18,6 +24,11 @@ public class SwaggerConfiguration {
 
     @Bean
     public Docket swagger() {
-        return new Docket(DocumentationType.SWAGGER_2).select().apis(RequestHandlerSelectors.basePackage("com.upgrad.quora.api.controller")).paths(PathSelectors.any()).build();
+        return new Docket(DocumentationType.SWAGGER_2)
+                .ignoredParameterTypes(UserAuthTokenEntity.class)
+                .globalOperationParameters(Collections.singletonList(new ParameterBuilder().name("authorization")
+                        .description("Access token of the signed in user, or the Basic credentials for signin")
+                        .modelRef(new ModelRef("string")).parameterType("header").required(false).build()))
+                .select().apis(RequestHandlerSelectors.basePackage("com.upgrad.quora.api.controller")).paths(PathSelectors.any()).build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,74 @@
+package com.upgrad.quora.api.config;
+
+import com.upgrad.quora.api.auth.AuthorizedArgumentResolver;
+import com.upgrad.quora.service.common.QueryObservation;
+import com.upgrad.quora.service.common.ReplicaRoutingDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import java.util.List;
+
+/**
+ * This Configuration registers the resolver which authenticates the access token of the request for the controllers.
+ * It also unbinds the session of the request from the thread, which the resolver binds for the replica routing.
+ * The statements run by each request are observed, and the request is logged when it runs more than its query budget.
+ */
+@Configuration
+public class WebMvcConfiguration implements WebMvcConfigurer {
+
+    // The request attribute holding the QueryObservation of the request once it is complete.
+    public static final String QUERY_OBSERVATION_ATTRIBUTE = WebMvcConfiguration.class.getName() + ".QUERY_OBSERVATION";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WebMvcConfiguration.class);
+
+    @Autowired
+    private AuthorizedArgumentResolver authorizedArgumentResolver;
+
+    @Value("${quora.queries.request-budget:20}")
+    private int requestBudget;
+
+    // A statement of the same shape run this many times within a request counts as N+1.
+    @Value("${quora.queries.repeat-threshold:3}")
+    private int repeatThreshold;
+
+    @Override
+    public void addArgumentResolvers(final List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(authorizedArgumentResolver);
+    }
+
+    // The session bound to the thread by the resolver is unbound once the request is complete, and so is the observation.
+    @Override
+    public void addInterceptors(final InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptorAdapter() {
+            @Override
+            public boolean preHandle(final HttpServletRequest request, final HttpServletResponse response, final Object handler) {
+                QueryObservation.begin(repeatThreshold);
+                return true;
+            }
+
+            @Override
+            public void afterCompletion(final HttpServletRequest request, final HttpServletResponse response, final Object handler, final Exception ex) {
+                ReplicaRoutingDataSource.unbindSession();
+                final QueryObservation observation = QueryObservation.end();
+                if (observation == null) {
+                    return;
+                }
+                request.setAttribute(QUERY_OBSERVATION_ATTRIBUTE, observation);
+                if (observation.getStatements() > requestBudget) {
+                    LOGGER.warn("{} {} ran {} statements, over its budget of {}", request.getMethod(), request.getRequestURI(),
+                            observation.getStatements(), requestBudget);
+                }
+            }
+        });
+    }
+}
@@ -1,13 +1,13 @@
 package com.upgrad.quora.api.controller;
 
-import com.upgrad.quora.api.model.SignoutResponse;
+import com.upgrad.quora.api.auth.Authorized;
 import com.upgrad.quora.api.model.UserDeleteResponse;
+import com.upgrad.quora.api.model.UserDeletionResponse;
 import com.upgrad.quora.service.business.AdminBusinessService;
-import com.upgrad.quora.service.business.UserBusinessService;
+import com.upgrad.quora.service.dto.UserDeletion;
 import com.upgrad.quora.service.entity.UserAuthTokenEntity;
 import com.upgrad.quora.service.entity.UserEntity;
 import com.upgrad.quora.service.exception.AuthorizationFailedException;
-import com.upgrad.quora.service.exception.SignOutRestrictedException;
 import com.upgrad.quora.service.exception.UserNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -23,18 +23,19 @@ public class AdminController {
 
     // Endpoint to delete a user on the whole from the database completely using the user ID.
     @RequestMapping(method = RequestMethod.DELETE, path = "/admin/user/{userId}", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
-    public ResponseEntity<UserDeleteResponse> deleteUser(@PathVariable("userId") final String userId, @RequestHeader("authorization") final String authorizationToken) throws AuthorizationFailedException, UserNotFoundException {
-        String[] bearerToken = authorizationToken.split("Bearer ");
-        UserAuthTokenEntity userAuthTokenEntity = new UserAuthTokenEntity();
-        if (bearerToken.length == 1) {
-            userAuthTokenEntity = adminBusinessService.getUserAuthToken(bearerToken[0]);
-        } else {
-            userAuthTokenEntity = adminBusinessService.getUserAuthToken(bearerToken[1]);
-        }
-
-        UserEntity userEntity = adminBusinessService.getUser(userId);
+    public ResponseEntity<UserDeleteResponse> deleteUser(@PathVariable("userId") final String userId, @Authorized final UserAuthTokenEntity userAuthTokenEntity) throws AuthorizationFailedException, UserNotFoundException {
+        UserEntity userEntity = adminBusinessService.deleteUser(userId, userAuthTokenEntity.getUser());
         UserDeleteResponse userDeleteResponse = new UserDeleteResponse().id(userEntity.getUuid()).status("USER SUCCESSFULLY DELETED");
         return new ResponseEntity<UserDeleteResponse>(userDeleteResponse, HttpStatus.OK);
 
     }
+
+    // Endpoint to follow the purge of the questions and answers of a deleted user, which runs in the background.
+    @RequestMapping(method = RequestMethod.GET, path = "/admin/user/{userId}/deletion", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    public ResponseEntity<UserDeletionResponse> getUserDeletion(@PathVariable("userId") final String userId, @Authorized final UserAuthTokenEntity userAuthTokenEntity) throws AuthorizationFailedException, UserNotFoundException {
+        UserDeletion userDeletion = adminBusinessService.getUserDeletion(userId, userAuthTokenEntity.getUser());
+        UserDeletionResponse userDeletionResponse = new UserDeletionResponse().id(userDeletion.getUserId()).status(userDeletion.getStatus().name())
+                .questionsDeleted(userDeletion.getQuestionsDeleted()).answersDeleted(userDeletion.getAnswersDeleted()).failure(userDeletion.getFailure());
+        return new ResponseEntity<UserDeletionResponse>(userDeletionResponse, HttpStatus.OK);
+    }
 }
@@ -1,9 +1,12 @@
 package com.upgrad.quora.api.controller;
 
+import com.upgrad.quora.api.auth.Authorized;
 import com.upgrad.quora.api.model.*;
 import com.upgrad.quora.service.business.AnswerBusinessService;
+import com.upgrad.quora.service.business.ResourceVersions;
+import com.upgrad.quora.service.dto.AnswerDetails;
+import com.upgrad.quora.service.dto.QuestionDetails;
 import com.upgrad.quora.service.entity.AnswerEntity;
-import com.upgrad.quora.service.entity.QuestionEntity;
 import com.upgrad.quora.service.entity.UserAuthTokenEntity;
 import com.upgrad.quora.service.entity.UserEntity;
 import com.upgrad.quora.service.exception.AuthorizationFailedException;
@@ -14,6 +17,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
@@ -27,28 +31,21 @@ public class AnswerController {
     @Autowired
     private AnswerBusinessService answerBusinessService;
 
+    @Autowired
+    private ResourceVersions resourceVersions;
+
     // This endpoint creates an answer for the concerned question by the user currently logged in.
     @RequestMapping(method = RequestMethod.POST, path = "/question/{questionId}/answer/create", consumes = MediaType.APPLICATION_JSON_UTF8_VALUE, produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
-    public ResponseEntity<AnswerResponse> createAnswer(@RequestHeader("authorization") final String authorizationToken, @PathVariable("questionId") final String questionId, final AnswerRequest answerRequest) throws AuthorizationFailedException, InvalidQuestionException, UserNotFoundException {
-        String[] bearerToken = authorizationToken.split("Bearer ");
-        UserAuthTokenEntity userAuthTokenEntity = new UserAuthTokenEntity();
-        if(bearerToken.length == 1){
-            userAuthTokenEntity = answerBusinessService.getUserAuthToken(bearerToken[0]);
-        }else{
-            userAuthTokenEntity = answerBusinessService.getUserAuthToken(bearerToken[1]);
-        }
-        UserEntity userEntity = answerBusinessService.getUser(userAuthTokenEntity.getUuid());
-        QuestionEntity questionEntity = answerBusinessService.getQuestion(questionId);
+    public ResponseEntity<AnswerResponse> createAnswer(@Authorized(signedOutMessage = "User is signed out.Sign in first to post an answer") final UserAuthTokenEntity userAuthTokenEntity, @PathVariable("questionId") final String questionId, final AnswerRequest answerRequest) throws AuthorizationFailedException, InvalidQuestionException {
+        UserEntity userEntity = userAuthTokenEntity.getUser();
         AnswerEntity answerEntity = new AnswerEntity();
         answerEntity.setUuid(UUID.randomUUID().toString());
         answerEntity.setAns(answerRequest.getAnswer());
         final ZonedDateTime now = ZonedDateTime.now();
-        questionEntity.setDate(now);
         answerEntity.setDate(now);
         answerEntity.setUser(userEntity);
-        answerEntity.setQuestion(questionEntity);
 
-        AnswerEntity createdAnswer = answerBusinessService.createAnswer(answerEntity);
+        AnswerEntity createdAnswer = answerBusinessService.createAnswer(questionId, answerEntity);
         AnswerResponse answerResponse = new AnswerResponse().id(createdAnswer.getUuid()).status("ANSWER CREATED");
 
         return new ResponseEntity<AnswerResponse>(answerResponse, HttpStatus.CREATED);
@@ -56,60 +53,48 @@ public class AnswerController {
 
     // This endpoint enables the user to edit an answer that he/she has already posted.
     @RequestMapping(method = RequestMethod.PUT, path = "/answer/edit/{answerId}", consumes = MediaType.APPLICATION_JSON_UTF8_VALUE, produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
-    public ResponseEntity<AnswerEditResponse> editAnswer(@RequestHeader("authorization") final String authorizationToken, @PathVariable("answerId") String answerId, final AnswerEditRequest answerRequest) throws AuthorizationFailedException, InvalidQuestionException, UserNotFoundException {
-        String[] bearerToken = authorizationToken.split("Bearer ");
-        UserAuthTokenEntity userAuthTokenEntity = new UserAuthTokenEntity();
-
-        if(bearerToken.length == 1){
-            userAuthTokenEntity = answerBusinessService.getUserAuthToken(bearerToken[0]);
-        }else{
-            userAuthTokenEntity = answerBusinessService.getUserAuthToken(bearerToken[1]);
-        }
-        UserEntity userEntity = answerBusinessService.getUser(userAuthTokenEntity.getUuid());
-        AnswerEntity answerEntity = answerBusinessService.editAnswer(answerId,userEntity,answerRequest.getContent());
+    public ResponseEntity<AnswerEditResponse> editAnswer(@Authorized(signedOutMessage = "User is signed out.Sign in first to edit an answer") final UserAuthTokenEntity userAuthTokenEntity, @PathVariable("answerId") String answerId, final AnswerEditRequest answerRequest) throws AuthorizationFailedException, InvalidQuestionException {
+        AnswerEntity answerEntity = answerBusinessService.editAnswer(answerId,userAuthTokenEntity.getUser(),answerRequest.getContent());
         AnswerEditResponse answerResponse = new AnswerEditResponse().id(answerEntity.getUuid()).status("ANSWER EDITED");
         return new ResponseEntity<AnswerEditResponse>(answerResponse, HttpStatus.OK);
     }
 
     // This endpoint helps the user to delete an answer that was posted.
     @RequestMapping(method = RequestMethod.DELETE, path = "/answer/delete/{answerId}", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
-    public ResponseEntity<AnswerDeleteResponse> deleteAnswer(@RequestHeader("authorization") final String authorizationToken, @PathVariable("answerId") String answerId) throws AuthorizationFailedException, InvalidQuestionException {
-        String[] bearerToken = authorizationToken.split("Bearer ");
-
-        AnswerEntity answerEntity = new AnswerEntity();
-
-        if(bearerToken.length == 1){
-            answerEntity = answerBusinessService.deleteAnswer(bearerToken[0],answerId);
-        }else{
-            answerEntity = answerBusinessService.deleteAnswer(bearerToken[1],answerId);
-        }
+    public ResponseEntity<AnswerDeleteResponse> deleteAnswer(@Authorized(signedOutMessage = "User is signed out.Sign in first to delete an answer") final UserAuthTokenEntity userAuthTokenEntity, @PathVariable("answerId") String answerId) throws AuthorizationFailedException, InvalidQuestionException {
+        AnswerEntity answerEntity = answerBusinessService.deleteAnswer(answerId, userAuthTokenEntity.getUser());
 
         AnswerDeleteResponse answerDeleteResponse = new AnswerDeleteResponse().id(answerEntity.getUuid()).status("ANSWER DELETED");
         return new ResponseEntity<AnswerDeleteResponse>(answerDeleteResponse,HttpStatus.OK);
     }
 
     // This endpoint fetches all the answers posted by every user for a given question.
+    // A request whose If-None-Match header matches the current ETag of the answers gets a 304 without any body.
+    // The ETag is read before the question, so it never stands for a newer version, and the 304 is sent without reading the question.
+    // A question deleted since the ETag was sent may still get a 304, until the version of its answers changes.
     @RequestMapping(method = RequestMethod.GET, path = "answer/all/{questionId}", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
-    public ResponseEntity<List<AnswerDetailsResponse>> getAllAnswersForQuestion(@RequestHeader("authorization") final String authorizationToken, @PathVariable("questionId") String questionId) throws AuthorizationFailedException, InvalidQuestionException, UserNotFoundException {
-        String[] bearerToken = authorizationToken.split("Bearer ");
-        QuestionEntity questionEntity = answerBusinessService.getQuestionToGetAllAnswers(questionId);
-        List<AnswerEntity> answerEntity = new ArrayList<AnswerEntity>();
-
-        if(bearerToken.length == 1){
-            answerEntity = answerBusinessService.getAllAnswersOfQuestion(bearerToken[0],questionEntity);
-        }else{
-            answerEntity = answerBusinessService.getAllAnswersOfQuestion(bearerToken[1],questionEntity);
+    public ResponseEntity<List<AnswerDetailsResponse>> getAllAnswersForQuestion(@Authorized(signedOutMessage = "User is signed out.Sign in first to get the answers") final UserAuthTokenEntity userAuthTokenEntity, @PathVariable("questionId") String questionId, final WebRequest webRequest) throws AuthorizationFailedException, InvalidQuestionException, UserNotFoundException {
+        final String eTag = resourceVersions.getAnswersETag(questionId);
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
         }
+        QuestionDetails question = answerBusinessService.getQuestionToGetAllAnswers(questionId);
+        List<AnswerDetails> answers = answerBusinessService.getAllAnswersOfQuestion(question);
+        return new ResponseEntity<List<AnswerDetailsResponse>>(toAnswerDetailsResponses(question, answers),HttpStatus.OK);
+    }
+
+    // Maps the answers of a question to the response of the listing, it is public for the benchmarks of quora-bench.
+    public static List<AnswerDetailsResponse> toAnswerDetailsResponses(final QuestionDetails question, final List<AnswerDetails> answers) {
         List<AnswerDetailsResponse> allAnswers = new ArrayList<AnswerDetailsResponse>();
 
-        for (ListIterator<AnswerEntity> iter = answerEntity.listIterator(); iter.hasNext(); ) {
-            AnswerEntity answer = iter.next();
+        for (ListIterator<AnswerDetails> iter = answers.listIterator(); iter.hasNext(); ) {
+            AnswerDetails answer = iter.next();
             AnswerDetailsResponse answerDetailsResponse = new AnswerDetailsResponse();
             answerDetailsResponse.setId(answer.getUuid());
-            answerDetailsResponse.setQuestionContent(questionEntity.getContent());
+            answerDetailsResponse.setQuestionContent(question.getContent());
             answerDetailsResponse.setAnswerContent(answer.getAns());
             allAnswers.add(answerDetailsResponse);
         }
-        return new ResponseEntity<List<AnswerDetailsResponse>>(allAnswers,HttpStatus.OK);
+        return allAnswers;
     }
 }
@@ -1,18 +1,18 @@
 package com.upgrad.quora.api.controller;
 
+import com.upgrad.quora.api.auth.Authorized;
 import com.upgrad.quora.api.model.UserDetailsResponse;
 import com.upgrad.quora.service.business.CommonBusinessService;
-import com.upgrad.quora.service.business.UserBusinessService;
+import com.upgrad.quora.service.business.ResourceVersions;
 import com.upgrad.quora.service.entity.UserAuthTokenEntity;
 import com.upgrad.quora.service.entity.UserEntity;
-import com.upgrad.quora.service.exception.AuthorizationFailedException;
-import com.upgrad.quora.service.exception.SignOutRestrictedException;
 import com.upgrad.quora.service.exception.UserNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/")
@@ -20,17 +20,19 @@ public class CommonController {
     @Autowired
     private CommonBusinessService commonBusinessService;
 
+    @Autowired
+    private ResourceVersions resourceVersions;
+
     // This endpoint is called to fetch the details of the user who is logged in at the given time.
+    // A request whose If-None-Match header matches the current ETag of the user gets a 304 without any body.
+    // The ETag is read before the user, so it never stands for a newer version, and the 304 is sent without reading the user.
+    // A user deleted since the ETag was sent may still get a 304, until the version of the user changes.
     @RequestMapping(method = RequestMethod.GET, path = "/userprofile/{userId}", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
-    public ResponseEntity<UserDetailsResponse> getUser(@PathVariable("userId")final String userId, @RequestHeader("authorization")  final String authorizationToken) throws UserNotFoundException, AuthorizationFailedException {
-        String[] bearerToken = authorizationToken.split("Bearer ");
-        UserAuthTokenEntity userAuthTokenEntity = new UserAuthTokenEntity();
-        if(bearerToken.length == 1){
-            userAuthTokenEntity = commonBusinessService.getUserAuthToken(bearerToken[0]);
-        }else{
-            userAuthTokenEntity = commonBusinessService.getUserAuthToken(bearerToken[1]);
+    public ResponseEntity<UserDetailsResponse> getUser(@PathVariable("userId")final String userId, @Authorized(signedOutMessage = "User is signed out.Sign in first to get user details") final UserAuthTokenEntity userAuthTokenEntity, final WebRequest webRequest) throws UserNotFoundException {
+        final String eTag = resourceVersions.getUserETag(userId);
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
         }
-
         final UserEntity userEntity = commonBusinessService.getUser(userId);
        UserDetailsResponse userDetailsResponse = new UserDetailsResponse().firstName(userEntity.getFirstName()).lastName(userEntity.getLastName())
                 .userName(userEntity.getUsername()).emailAddress(userEntity.getEmail()).country(userEntity.getCountry())
@@ -1,19 +1,34 @@
 package com.upgrad.quora.api.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.upgrad.quora.api.auth.Authorized;
 import com.upgrad.quora.api.model.*;
 import com.upgrad.quora.service.business.QuestionBusinessService;
+import com.upgrad.quora.service.business.ResourceVersions;
+import com.upgrad.quora.service.common.KeysetPage;
+import com.upgrad.quora.service.dto.HotQuestion;
+import com.upgrad.quora.service.dto.QuestionDetails;
+import com.upgrad.quora.service.dto.QuestionSearchResult;
+import com.upgrad.quora.service.dto.QuestionSuggestion;
 import com.upgrad.quora.service.entity.QuestionEntity;
 import com.upgrad.quora.service.entity.UserAuthTokenEntity;
 import com.upgrad.quora.service.entity.UserEntity;
 import com.upgrad.quora.service.exception.AuthorizationFailedException;
+import com.upgrad.quora.service.exception.DuplicateQuestionException;
+import com.upgrad.quora.service.exception.InvalidPaginationException;
 import com.upgrad.quora.service.exception.InvalidQuestionException;
 import com.upgrad.quora.service.exception.UserNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -23,25 +38,26 @@ import java.util.UUID;
 @RestController
 @RequestMapping("/")
 public class QuestionController {
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     @Autowired
     private QuestionBusinessService questionBusinessService;
 
+    @Autowired
+    private ResourceVersions resourceVersions;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     /*
      * This endpoint is used to help user create a question and post.
      * The created question has a unique ID generated for it.
      * The newly created question will have a timestamp and mapped to the user who posted it.
+     * A question nearly identical to an existing one is rejected with a 409, unless duplicates are only flagged.
      */
     @RequestMapping(method = RequestMethod.POST, path = "/question/create", consumes = MediaType.APPLICATION_JSON_UTF8_VALUE, produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
-    public ResponseEntity<QuestionResponse> createQuestion(@RequestHeader("authorization") final String authorizationToken, final QuestionRequest questionRequest) throws UserNotFoundException, AuthorizationFailedException {
-        String[] bearerToken = authorizationToken.split("Bearer ");
-        UserAuthTokenEntity userAuthTokenEntity = new UserAuthTokenEntity();
-        if (bearerToken.length == 1) {
-            userAuthTokenEntity = questionBusinessService.getUserAuthToken(bearerToken[0]);
-        } else {
-            userAuthTokenEntity = questionBusinessService.getUserAuthToken(bearerToken[1]);
-        }
-
-        UserEntity userEntity = questionBusinessService.getUser(userAuthTokenEntity.getUuid());
+    public ResponseEntity<QuestionResponse> createQuestion(@Authorized(signedOutMessage = "User is signed out.Sign in first to post a question") final UserAuthTokenEntity userAuthTokenEntity, final QuestionRequest questionRequest) throws DuplicateQuestionException {
+        UserEntity userEntity = userAuthTokenEntity.getUser();
         QuestionEntity questionEntity = new QuestionEntity();
         questionEntity.setUuid(UUID.randomUUID().toString());
         questionEntity.setContent(questionRequest.getContent());
@@ -50,48 +66,85 @@ public class QuestionController {
         questionEntity.setUser(userEntity);
 
         QuestionEntity question = questionBusinessService.createQuestion(questionEntity);
-        QuestionResponse questionResponse = new QuestionResponse().id(question.getUuid()).status("QUESTION CREATED");
+        QuestionResponse questionResponse = new QuestionResponse().id(question.getUuid()).status("QUESTION CREATED").duplicateOf(question.getDuplicateOf());
 
         return new ResponseEntity<QuestionResponse>(questionResponse, HttpStatus.CREATED);
 
     }
 
-    // This endpoint is called to fetch all the questions posted in the database.
+    /*
+     * This endpoint is called to fetch the questions posted in the database, one page at a time and newest first.
+     * When there are more questions, the cursor of the next page is sent in the X-Next-Cursor header.
+     * A request whose If-None-Match header matches the current ETag of the questions gets a 304 without any body.
+     * The ETag is read before the questions, so it never stands for a newer version. The cursor and the limit are checked
+     * first, without any query, and the 304 is sent without reading the questions.
+     */
     @RequestMapping(method = RequestMethod.GET, path = "/question/all", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
-    public ResponseEntity<List<QuestionDetailsResponse>> getAllQuestions(@RequestHeader("authorization") final String authorizationToken) throws AuthorizationFailedException {
-        String[] bearerToken = authorizationToken.split("Bearer ");
-        UserAuthTokenEntity userAuthTokenEntity = new UserAuthTokenEntity();
-        if (bearerToken.length == 1) {
-            userAuthTokenEntity = questionBusinessService.getUserAuthTokenForGetQuestions(bearerToken[0]);
-        } else {
-            userAuthTokenEntity = questionBusinessService.getUserAuthTokenForGetQuestions(bearerToken[1]);
+    public ResponseEntity<List<QuestionDetailsResponse>> getAllQuestions(@Authorized(signedOutMessage = "User is signed out.Sign in first to get all questions") final UserAuthTokenEntity userAuthTokenEntity, @RequestParam(value = "cursor", required = false) final String cursor, @RequestParam(value = "limit", required = false) final Integer limit, final WebRequest webRequest) throws InvalidPaginationException {
+        final String eTag = resourceVersions.getQuestionsETag();
+        questionBusinessService.checkPage(cursor, limit);
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
         }
+        KeysetPage<QuestionDetails> questions = questionBusinessService.getAllQuestions(cursor, limit);
+        return new ResponseEntity<List<QuestionDetailsResponse>>(toQuestionDetailsResponses(questions.getItems()), getPageHeaders(questions), HttpStatus.OK);
+    }
 
-        List<QuestionEntity> questions = questionBusinessService.getAllQuestions();
-        List<QuestionDetailsResponse> questionResponseList = new ArrayList<QuestionDetailsResponse>();
-        for (ListIterator<QuestionEntity> iter = questions.listIterator(); iter.hasNext(); ) {
-            QuestionEntity question = iter.next();
-            QuestionDetailsResponse questionResponse = new QuestionDetailsResponse();
-            questionResponse.setId(question.getUuid());
-            questionResponse.setContent(question.getContent());
-            questionResponseList.add(questionResponse);
+    /*
+     * This endpoint is called to export every question in the database in a single response, oldest first.
+     * The questions are written to the response as they are read from the database, so no list of them is ever built.
+     */
+    @RequestMapping(method = RequestMethod.GET, path = "/question/export", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    public void exportAllQuestions(@Authorized(signedOutMessage = "User is signed out.Sign in first to export the questions") final UserAuthTokenEntity userAuthTokenEntity, final HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_UTF8_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            generator.writeStartArray();
+            questionBusinessService.exportAllQuestions(question -> {
+                generator.writeStartObject();
+                generator.writeStringField("id", question.getUuid());
+                generator.writeStringField("content", question.getContent());
+                generator.writeObjectField("answerCount", question.getAnswerCount());
+                generator.writeEndObject();
+            });
+            generator.writeEndArray();
         }
+    }
 
-        return new ResponseEntity<List<QuestionDetailsResponse>>(questionResponseList, HttpStatus.OK);
+    // This endpoint is called to search the questions by the words of their content, best matching first.
+    @RequestMapping(method = RequestMethod.GET, path = "/question/search", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    public ResponseEntity<List<QuestionSearchResponse>> searchQuestions(@Authorized(signedOutMessage = "User is signed out.Sign in first to search the questions") final UserAuthTokenEntity userAuthTokenEntity, @RequestParam("query") final String query, @RequestParam(value = "limit", required = false) final Integer limit) throws InvalidPaginationException {
+        List<QuestionSearchResponse> searchResponseList = new ArrayList<QuestionSearchResponse>();
+        for (QuestionSearchResult question : questionBusinessService.searchQuestions(query, limit)) {
+            searchResponseList.add(new QuestionSearchResponse().id(question.getUuid()).content(question.getContent()).score(question.getScore()));
+        }
+        return new ResponseEntity<List<QuestionSearchResponse>>(searchResponseList, HttpStatus.OK);
+    }
+
+    // This endpoint is called while the user types a question, to suggest the newest questions starting with the typed text.
+    @RequestMapping(method = RequestMethod.GET, path = "/question/suggest", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    public ResponseEntity<List<QuestionSuggestionResponse>> suggestQuestions(@Authorized(signedOutMessage = "User is signed out.Sign in first to get question suggestions") final UserAuthTokenEntity userAuthTokenEntity, @RequestParam("prefix") final String prefix, @RequestParam(value = "limit", required = false) final Integer limit) throws InvalidPaginationException {
+        List<QuestionSuggestionResponse> suggestionResponseList = new ArrayList<QuestionSuggestionResponse>();
+        for (QuestionSuggestion question : questionBusinessService.suggestQuestions(prefix, limit)) {
+            suggestionResponseList.add(new QuestionSuggestionResponse().id(question.getUuid()).content(question.getContent()));
+        }
+        return new ResponseEntity<List<QuestionSuggestionResponse>>(suggestionResponseList, HttpStatus.OK);
+    }
+
+    // This endpoint is called to fetch the questions with the most recent answers, hottest first.
+    @RequestMapping(method = RequestMethod.GET, path = "/question/hot", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    public ResponseEntity<List<HotQuestionResponse>> getHotQuestions(@Authorized(signedOutMessage = "User is signed out.Sign in first to get the hot questions") final UserAuthTokenEntity userAuthTokenEntity, @RequestParam(value = "limit", required = false) final Integer limit) throws InvalidPaginationException {
+        List<HotQuestionResponse> hotResponseList = new ArrayList<HotQuestionResponse>();
+        for (HotQuestion hotQuestion : questionBusinessService.getHotQuestions(limit)) {
+            QuestionDetails question = hotQuestion.getQuestion();
+            hotResponseList.add(new HotQuestionResponse().id(question.getUuid()).content(question.getContent()).answerCount(question.getAnswerCount()).score(hotQuestion.getScore()));
+        }
+        return new ResponseEntity<List<HotQuestionResponse>>(hotResponseList, HttpStatus.OK);
     }
 
     // This endpoint is called to edit an already existing question in the database.
     @RequestMapping(method = RequestMethod.PUT, path = "/question/edit/{questionId}", consumes = MediaType.APPLICATION_JSON_UTF8_VALUE, produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
-    public ResponseEntity<QuestionEditResponse> editQuestion(@RequestHeader("authorization") final String authorizationToken, @PathVariable("questionId") String questionId, final QuestionRequest questionRequest) throws AuthorizationFailedException, InvalidQuestionException {
-        String[] bearerToken = authorizationToken.split("Bearer ");
-        UserEntity loggedInUserEntity = new UserEntity();
-
-        if (bearerToken.length == 1) {
-            loggedInUserEntity = questionBusinessService.getLoggedInUserDetailsGetEditQuestion(bearerToken[0]);
-        } else {
-            loggedInUserEntity = questionBusinessService.getLoggedInUserDetailsGetEditQuestion(bearerToken[1]);
-        }
-        QuestionEntity questionEntity = questionBusinessService.editQuestion(questionId, loggedInUserEntity, questionRequest.getContent());
+    public ResponseEntity<QuestionEditResponse> editQuestion(@Authorized(signedOutMessage = "User is signed out.Sign in first to edit the question") final UserAuthTokenEntity userAuthTokenEntity, @PathVariable("questionId") String questionId, final QuestionRequest questionRequest) throws AuthorizationFailedException, InvalidQuestionException {
+        QuestionEntity questionEntity = questionBusinessService.editQuestion(questionId, userAuthTokenEntity.getUser(), questionRequest.getContent());
         QuestionEditResponse questionEditResponse = new QuestionEditResponse().id(questionEntity.getUuid()).status("QUESTION EDITED");
 
         return new ResponseEntity<QuestionEditResponse>(questionEditResponse, HttpStatus.OK);
@@ -99,40 +152,45 @@ public class QuestionController {
 
     // This endpoint is called to delete the question in concern.
     @RequestMapping(method = RequestMethod.DELETE, path = "/question/delete/{questionId}", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
-    public ResponseEntity<QuestionDeleteResponse> deleteQuestion(@RequestHeader("authorization") final String authorizationToken, @PathVariable("questionId") String questionId) throws AuthorizationFailedException, InvalidQuestionException {
-        String[] bearerToken = authorizationToken.split("Bearer ");
-        QuestionEntity questionEntity = new QuestionEntity();
-
-        if (bearerToken.length == 1) {
-            questionEntity = questionBusinessService.getUserAuthTokenForDeleteQuestion(bearerToken[0], questionId);
-        } else {
-            questionEntity = questionBusinessService.getUserAuthTokenForDeleteQuestion(bearerToken[1], questionId);
-        }
+    public ResponseEntity<QuestionDeleteResponse> deleteQuestion(@Authorized(signedOutMessage = "User is signed out.Sign in first to delete a question") final UserAuthTokenEntity userAuthTokenEntity, @PathVariable("questionId") String questionId) throws AuthorizationFailedException, InvalidQuestionException {
+        QuestionEntity questionEntity = questionBusinessService.deleteQuestion(questionId, userAuthTokenEntity.getUser());
         QuestionDeleteResponse questionDeleteResponse = new QuestionDeleteResponse().id(questionEntity.getUuid()).status("QUESTION DELETED");
         return new ResponseEntity<QuestionDeleteResponse>(questionDeleteResponse, HttpStatus.OK);
     }
 
-    // This endpoint is called to fetch all the questions posted by the currently logged in user.
+    // This endpoint is called to fetch the questions posted by a user, paginated the same way as all the questions.
+    // The 304 is sent without looking the user up, so a user deleted since the ETag was sent may still get one.
     @RequestMapping(method = RequestMethod.GET, path = "question/all/{userId}", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
-    public ResponseEntity<List<QuestionDetailsResponse>> getAllQuestionsOfUser(@RequestHeader("authorization") final String authorizationToken, @PathVariable("userId") String userId) throws AuthorizationFailedException, UserNotFoundException {
-        String[] bearerToken = authorizationToken.split("Bearer ");
-        UserAuthTokenEntity userAuthTokenEntity = new UserAuthTokenEntity();
-        if (bearerToken.length == 1) {
-            userAuthTokenEntity = questionBusinessService.getUserAuthTokenForGettingAllQuestionsOfUser(bearerToken[0]);
-        } else {
-            userAuthTokenEntity = questionBusinessService.getUserAuthTokenForGettingAllQuestionsOfUser(bearerToken[1]);
+    public ResponseEntity<List<QuestionDetailsResponse>> getAllQuestionsOfUser(@Authorized(signedOutMessage = "User is signed out.Sign in first to get all questions posted by a specific user") final UserAuthTokenEntity userAuthTokenEntity, @PathVariable("userId") String userId, @RequestParam(value = "cursor", required = false) final String cursor, @RequestParam(value = "limit", required = false) final Integer limit, final WebRequest webRequest) throws UserNotFoundException, InvalidPaginationException {
+        final String eTag = resourceVersions.getQuestionsETag();
+        questionBusinessService.checkPage(cursor, limit);
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
         }
-        List<QuestionEntity> questions = questionBusinessService.getAllQuestionsOfUser(userId);
-        List<QuestionDetailsResponse> allQuestionOfUserResponseList = new ArrayList<QuestionDetailsResponse>();
-        for (ListIterator<QuestionEntity> iter = questions.listIterator(); iter.hasNext(); ) {
-            QuestionEntity question = iter.next();
+        KeysetPage<QuestionDetails> questions = questionBusinessService.getAllQuestionsOfUser(userId, cursor, limit);
+        return new ResponseEntity<List<QuestionDetailsResponse>>(toQuestionDetailsResponses(questions.getItems()), getPageHeaders(questions), HttpStatus.OK);
+    }
+
+    // Maps a page of questions to the response of the listings, it is public for the benchmarks of quora-bench.
+    public static List<QuestionDetailsResponse> toQuestionDetailsResponses(final List<QuestionDetails> questions) {
+        List<QuestionDetailsResponse> questionResponseList = new ArrayList<QuestionDetailsResponse>();
+        for (ListIterator<QuestionDetails> iter = questions.listIterator(); iter.hasNext(); ) {
+            QuestionDetails question = iter.next();
             QuestionDetailsResponse questionResponse = new QuestionDetailsResponse();
             questionResponse.setId(question.getUuid());
             questionResponse.setContent(question.getContent());
-            allQuestionOfUserResponseList.add(questionResponse);
+            questionResponse.setAnswerCount(question.getAnswerCount());
+            questionResponseList.add(questionResponse);
         }
+        return questionResponseList;
+    }
 
-        return new ResponseEntity<List<QuestionDetailsResponse>>(allQuestionOfUserResponseList, HttpStatus.OK);
+    private static HttpHeaders getPageHeaders(final KeysetPage<?> page) {
+        HttpHeaders headers = new HttpHeaders();
+        if (page.getNextCursor() != null) {
+            headers.add(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return headers;
     }
 
 }
\ No newline at end of file
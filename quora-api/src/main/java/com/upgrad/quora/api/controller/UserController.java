@@ -1,5 +1,6 @@
 package com.upgrad.quora.api.controller;
 
+import com.upgrad.quora.api.auth.AuthorizationHeader;
 import com.upgrad.quora.api.model.SigninResponse;
 import com.upgrad.quora.api.model.SignoutResponse;
 import com.upgrad.quora.api.model.SignupUserRequest;
@@ -95,14 +96,7 @@ public class UserController {
      */
     @RequestMapping(method = RequestMethod.POST, path = "/user/signout", produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
     public ResponseEntity<SignoutResponse> signOut(@RequestHeader("authorization") final String authorizationToken) throws SignOutRestrictedException {
-        String[] bearerToken = authorizationToken.split("Bearer ");
-        UserAuthTokenEntity userAuthTokenEntity = new UserAuthTokenEntity();
-        if (bearerToken.length == 1) {
-            userAuthTokenEntity = userBusinessService.getUserAuthToken(bearerToken[0]);
-        } else {
-            userAuthTokenEntity = userBusinessService.getUserAuthToken(bearerToken[1]);
-        }
-        //UserAuthTokenEntity userAuthTokenEntity = userBusinessService.getUserAuthToken(bearerToken[1]);
+        UserAuthTokenEntity userAuthTokenEntity = userBusinessService.getUserAuthToken(AuthorizationHeader.getAccessToken(authorizationToken));
 
         SignoutResponse signoutResponse = new SignoutResponse().id(userAuthTokenEntity.getUuid()).message("SIGNED OUT SUCCESSFULLY");
         return new ResponseEntity<SignoutResponse>(signoutResponse, HttpStatus.OK);
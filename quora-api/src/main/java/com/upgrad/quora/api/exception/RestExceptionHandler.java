@@ -2,6 +2,8 @@ package com.upgrad.quora.api.exception;
 
 import com.upgrad.quora.api.model.ErrorResponse;
 import com.upgrad.quora.service.exception.*;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -12,30 +14,49 @@ import java.security.SignatureException;
 
 @ControllerAdvice
 public class RestExceptionHandler {
+    private static final String ERROR_COUNTER_NAME = "quora.errors";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @ExceptionHandler(SignUpRestrictedException.class)
     public ResponseEntity<ErrorResponse> signUpRestrictedException(SignUpRestrictedException exc, WebRequest request){
-        return new ResponseEntity<ErrorResponse>(new ErrorResponse().code(exc.getCode()).message(exc.getErrorMessage()), HttpStatus.CONFLICT);
+        return errorResponse(exc, exc.getCode(), exc.getErrorMessage(), HttpStatus.CONFLICT);
     }
 
     @ExceptionHandler(AuthenticationFailedException.class)
     public ResponseEntity<ErrorResponse> authenticationFailedException(AuthenticationFailedException exc, WebRequest request){
-        return new ResponseEntity<ErrorResponse>(new ErrorResponse().code(exc.getCode()).message(exc.getErrorMessage()), HttpStatus.UNAUTHORIZED);
+        return errorResponse(exc, exc.getCode(), exc.getErrorMessage(), HttpStatus.UNAUTHORIZED);
     }
 
     @ExceptionHandler(SignOutRestrictedException.class)
     public ResponseEntity<ErrorResponse> signOutRestrictedException(SignOutRestrictedException exc, WebRequest request){
-        return new ResponseEntity<ErrorResponse>(new ErrorResponse().code(exc.getCode()).message(exc.getErrorMessage()), HttpStatus.UNAUTHORIZED);
+        return errorResponse(exc, exc.getCode(), exc.getErrorMessage(), HttpStatus.UNAUTHORIZED);
     }
     @ExceptionHandler(UserNotFoundException.class)
     public ResponseEntity<ErrorResponse> userNotFoundException(UserNotFoundException exc, WebRequest request){
-        return new ResponseEntity<ErrorResponse>(new ErrorResponse().code(exc.getCode()).message(exc.getErrorMessage()), HttpStatus.NOT_FOUND);
+        return errorResponse(exc, exc.getCode(), exc.getErrorMessage(), HttpStatus.NOT_FOUND);
     }
     @ExceptionHandler(AuthorizationFailedException.class)
     public ResponseEntity<ErrorResponse> authorizationFailedException(AuthorizationFailedException exc, WebRequest request){
-        return new ResponseEntity<ErrorResponse>(new ErrorResponse().code(exc.getCode()).message(exc.getErrorMessage()), HttpStatus.FORBIDDEN);
+        return errorResponse(exc, exc.getCode(), exc.getErrorMessage(), HttpStatus.FORBIDDEN);
     }
     @ExceptionHandler(InvalidQuestionException.class)
     public ResponseEntity<ErrorResponse> invalidQuestionException(InvalidQuestionException exc, WebRequest request){
-        return new ResponseEntity<ErrorResponse>(new ErrorResponse().code(exc.getCode()).message(exc.getErrorMessage()), HttpStatus.NOT_FOUND);
+        return errorResponse(exc, exc.getCode(), exc.getErrorMessage(), HttpStatus.NOT_FOUND);
+    }
+    @ExceptionHandler(InvalidPaginationException.class)
+    public ResponseEntity<ErrorResponse> invalidPaginationException(InvalidPaginationException exc, WebRequest request){
+        return errorResponse(exc, exc.getCode(), exc.getErrorMessage(), HttpStatus.BAD_REQUEST);
+    }
+    @ExceptionHandler(DuplicateQuestionException.class)
+    public ResponseEntity<ErrorResponse> duplicateQuestionException(DuplicateQuestionException exc, WebRequest request){
+        return errorResponse(exc, exc.getCode(), exc.getErrorMessage(), HttpStatus.CONFLICT);
+    }
+
+    // Every error sent back is counted by its code, the exception it was raised with and the status of the response.
+    private ResponseEntity<ErrorResponse> errorResponse(final Exception exc, final String code, final String message, final HttpStatus status) {
+        meterRegistry.counter(ERROR_COUNTER_NAME, "code", code, "exception", exc.getClass().getSimpleName(), "status", String.valueOf(status.value())).increment();
+        return new ResponseEntity<ErrorResponse>(new ErrorResponse().code(code).message(message), status);
     }
 }
@@ -48,5 +48,28 @@ public class AdminControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("code").value("USR-001"));
     }
 
+    //This test case passes when you delete a user, who is hidden at once while the purge of its questions and answers can be followed.
+    @Test
+    public void deleteUser() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.delete("/admin/user/database_uuid5").header("authorization", "database_accesstoken"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("id").value("database_uuid5"));
+        mvc.perform(MockMvcRequestBuilders.get("/userprofile/database_uuid5").header("authorization", "database_accesstoken"))
+                .andExpect(status().isNotFound())
+                .andExpect(MockMvcResultMatchers.jsonPath("code").value("USR-001"));
+        mvc.perform(MockMvcRequestBuilders.get("/admin/user/database_uuid5/deletion").header("authorization", "database_accesstoken"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("id").value("database_uuid5"))
+                .andExpect(MockMvcResultMatchers.jsonPath("failure").doesNotExist());
+    }
+
+    //This test case passes when you ask for the deletion of a user who was not deleted.
+    @Test
+    public void getDeletionOfUserNotDeleted() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/admin/user/database_uuid1/deletion").header("authorization", "database_accesstoken"))
+                .andExpect(status().isNotFound())
+                .andExpect(MockMvcResultMatchers.jsonPath("code").value("USR-002"));
+    }
+
 
 }
@@ -120,6 +120,25 @@ public class AnswerControllerTest {
                 .andExpect(MockMvcResultMatchers.jsonPath("code").value("ATHR-001"));
     }
 
+    //This test case passes when you try to get all the answers posted for a specific question and the JWT token entered exists in the database and the user corresponding to that JWT token is signed in.
+    @Test
+    public void getAllAnswersToQuestion() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/answer/all/database_question_uuid").header("authorization", "database_accesstoken1"))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].id").value("database_answer_uuid"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].questionContent").value("database_question_content"))
+                .andExpect(MockMvcResultMatchers.jsonPath("$[0].answerContent").value("my_answer"));
+    }
+
+    //This test case passes when getting all the answers posted for a specific question runs a handful of statements, and none of them again and again.
+    @Test
+    public void getAllAnswersToQuestionWithinQueryBudget() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/answer/all/database_question_uuid").header("authorization", "database_accesstoken1"))
+                .andExpect(status().isOk())
+                .andExpect(QueryBudget.atMost(5))
+                .andExpect(QueryBudget.noRepeatedStatements());
+    }
+
     //This test case passes when you try to get all the answers posted for a specific question and the JWT token entered exists in the database but the user corresponding to that JWT token is signed out.
     @Test
     public void getAllAnswersToQuestionWithSignedOutUser() throws Exception {
@@ -28,6 +28,26 @@ public class CommonControllerTest {
                 .andExpect(status().isOk());
     }
 
+    //This test case passes when you try to get the details of the existing user with an ETag which was never returned by the application.
+    @Test
+    public void detailsWithStaleETag() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/userprofile/database_uuid1").header("authorization", "database_accesstoken").header("If-None-Match", "\"stale-0\""))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.header().exists("ETag"));
+    }
+
+    //This test case passes when the user is not read at all to answer a request whose ETag still matches, and no more statements run than authenticating it.
+    @Test
+    public void detailsNotModifiedWithoutQuery() throws Exception {
+        String etag = mvc.perform(MockMvcRequestBuilders.get("/userprofile/database_uuid1").header("authorization", "database_accesstoken"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        // The access token was validated by the first request, so the second one is authenticated without any statement.
+        mvc.perform(MockMvcRequestBuilders.get("/userprofile/database_uuid1").header("authorization", "database_accesstoken").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(QueryBudget.atMost(0));
+    }
+
     //This test case passes when you try to get the details of the existing user but the JWT token entered does not exist in the database.
     @Test
     public void detailsUsingNonExistingAccessToken() throws Exception {
@@ -0,0 +1,38 @@
+package com.upgrad.quora.api.controller;
+
+import com.upgrad.quora.api.config.WebMvcConfiguration;
+import com.upgrad.quora.service.common.QueryObservation;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * These matchers fail a MockMvc request which ran more statements than its budget, or the same statement again and
+ * again, as observed by the QueryObservation of the request.
+ */
+public final class QueryBudget {
+
+    private QueryBudget() {
+    }
+
+    public static ResultMatcher atMost(final int statements) {
+        return result -> {
+            final QueryObservation observation = observation(result.getRequest().getAttribute(WebMvcConfiguration.QUERY_OBSERVATION_ATTRIBUTE));
+            assertTrue("The request ran " + observation.getStatements() + " statements, over its budget of " + statements,
+                    observation.getStatements() <= statements);
+        };
+    }
+
+    public static ResultMatcher noRepeatedStatements() {
+        return result -> {
+            final QueryObservation observation = observation(result.getRequest().getAttribute(WebMvcConfiguration.QUERY_OBSERVATION_ATTRIBUTE));
+            assertTrue("The request ran N+1 statements " + observation.getRepeatedShapes(), observation.getRepeatedShapes().isEmpty());
+        };
+    }
+
+    private static QueryObservation observation(final Object attribute) {
+        assertNotNull("The statements of the request were not observed", attribute);
+        return (QueryObservation) attribute;
+    }
+}
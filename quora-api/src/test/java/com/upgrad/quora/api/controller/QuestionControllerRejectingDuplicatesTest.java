@@ -0,0 +1,34 @@
+package com.upgrad.quora.api.controller;
+
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
+
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "quora.duplicates.reject=true")
+@AutoConfigureMockMvc
+
+public class QuestionControllerRejectingDuplicatesTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+
+    //This test case passes when duplicates are rejected and you try to create a question which differs from an existing question only in its case and punctuation.
+    @Test
+    public void createDuplicateQuestion() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.post("/question/create?content=DATABASE Question: content!").contentType(MediaType.APPLICATION_JSON_UTF8_VALUE).header("authorization", "database_accesstoken1"))
+                .andExpect(status().isConflict())
+                .andExpect(MockMvcResultMatchers.jsonPath("code").value("QUES-002"));
+    }
+}
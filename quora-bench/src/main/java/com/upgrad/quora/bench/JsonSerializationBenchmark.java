@@ -0,0 +1,72 @@
+package com.upgrad.quora.bench;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.upgrad.quora.api.controller.AnswerController;
+import com.upgrad.quora.api.controller.QuestionController;
+import com.upgrad.quora.api.model.AnswerDetailsResponse;
+import com.upgrad.quora.api.model.QuestionDetailsResponse;
+import com.upgrad.quora.api.model.QuestionResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class measures the serialization of the generated response models, with an ObjectMapper configured the way
+ * Spring MVC configures the one writing the responses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    @Param({"20", "100", "1000"})
+    private int size;
+
+    private ObjectMapper objectMapper;
+
+    private QuestionResponse questionResponse;
+
+    private List<QuestionDetailsResponse> questionDetailsResponses;
+
+    private List<AnswerDetailsResponse> answerDetailsResponses;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        questionResponse = new QuestionResponse().id(UUID.randomUUID().toString()).status("QUESTION CREATED");
+        questionDetailsResponses = QuestionController.toQuestionDetailsResponses(Listings.questions(size));
+        answerDetailsResponses = AnswerController.toAnswerDetailsResponses(Listings.questions(1).get(0), Listings.answers(size));
+    }
+
+    @Benchmark
+    public byte[] writeQuestionResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(questionResponse);
+    }
+
+    @Benchmark
+    public byte[] writeQuestionDetailsResponses() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(questionDetailsResponses);
+    }
+
+    @Benchmark
+    public byte[] writeAnswerDetailsResponses() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(answerDetailsResponses);
+    }
+}
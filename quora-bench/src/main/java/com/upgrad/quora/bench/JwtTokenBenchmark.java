@@ -0,0 +1,64 @@
+package com.upgrad.quora.bench;
+
+import com.auth0.jwt.algorithms.Algorithm;
+import com.upgrad.quora.service.business.JwtTokenProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class measures the signing of an access token, with the algorithm of the key ring built once at startup, and
+ * with an algorithm built for every signin from the password of the user, as the one argument constructor does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtTokenBenchmark {
+
+    // A throwaway key of the benchmarks only.
+    private static final String SECRET = "quora-bench-throwaway-key-not-for-signing-any-real-token-0123456789";
+
+    private static final String USER_UUID = "database_uuid1";
+
+    private JwtTokenProvider keyRingTokenProvider;
+
+    private ZonedDateTime issuedAt;
+
+    private ZonedDateTime expiresAt;
+
+    @Setup
+    public void setUp() {
+        keyRingTokenProvider = new JwtTokenProvider("quora-bench-1", Algorithm.HMAC512(SECRET));
+        issuedAt = ZonedDateTime.now();
+        expiresAt = issuedAt.plus(JwtTokenProvider.TOKEN_LIFETIME);
+    }
+
+    @Benchmark
+    public String generateTokenWithKeyRing() {
+        return keyRingTokenProvider.generateToken(USER_UUID, 1, issuedAt, expiresAt);
+    }
+
+    @Benchmark
+    public String generateTokenWithAlgorithmPerSignin() {
+        return new JwtTokenProvider(SECRET).generateToken(USER_UUID, issuedAt, expiresAt);
+    }
+
+    // The construction of the algorithm alone, the difference between the two above.
+    @Benchmark
+    public Algorithm buildAlgorithm() {
+        return Algorithm.HMAC512(SECRET);
+    }
+}
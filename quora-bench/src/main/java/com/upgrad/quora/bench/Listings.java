@@ -0,0 +1,56 @@
+package com.upgrad.quora.bench;
+
+import com.upgrad.quora.service.dto.AnswerDetails;
+import com.upgrad.quora.service.dto.QuestionDetails;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * This class builds the listings the benchmarks map and serialize, with contents of a typical length.
+ * The contents are drawn from a fixed seed, so every run measures the same data.
+ */
+final class Listings {
+
+    private static final long SEED = 42;
+
+    private static final String[] WORDS = {"how", "what", "why", "database", "index", "query", "java", "spring", "token",
+            "cache", "the", "a", "of", "to", "in", "is", "does", "work", "best", "way"};
+
+    private Listings() {
+    }
+
+    static List<QuestionDetails> questions(final int size) {
+        final Random random = new Random(SEED);
+        final ZonedDateTime now = ZonedDateTime.now();
+        final List<QuestionDetails> questions = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            questions.add(new QuestionDetails(i + 1, new UUID(random.nextLong(), random.nextLong()).toString(), sentence(random, 12),
+                    now.minusMinutes(i), random.nextInt(20)));
+        }
+        return questions;
+    }
+
+    static List<AnswerDetails> answers(final int size) {
+        final Random random = new Random(SEED + 1);
+        final List<AnswerDetails> answers = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            answers.add(new AnswerDetails(new UUID(random.nextLong(), random.nextLong()).toString(), sentence(random, 40)));
+        }
+        return answers;
+    }
+
+    private static String sentence(final Random random, final int words) {
+        final StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                sentence.append(' ');
+            }
+            sentence.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sentence.append('?').toString();
+    }
+}
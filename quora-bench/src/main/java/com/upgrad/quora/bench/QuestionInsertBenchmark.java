@@ -0,0 +1,168 @@
+package com.upgrad.quora.bench;
+
+import com.upgrad.quora.service.entity.AnswerEntity;
+import com.upgrad.quora.service.entity.QuestionEntity;
+import com.upgrad.quora.service.entity.UserAuthTokenEntity;
+import com.upgrad.quora.service.entity.UserEntity;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.orm.jpa.hibernate.SpringImplicitNamingStrategy;
+import org.springframework.boot.orm.jpa.hibernate.SpringPhysicalNamingStrategy;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class measures the questions inserted per second into a PostgreSQL database migrated by quora-db, before and
+ * after the ids were taken from pooled sequences: one insert and round trip per question, returning the id the database
+ * assigned as the identity ids did, against questions persisted through Hibernate with the settings of the application,
+ * whose inserts are sent in batches of 50 and rewritten by the driver into multi-row inserts.
+ * The database is given with -p url=..., -p username=... and -p password=...; the questions are inserted for a user
+ * created by the benchmark, and deleted with it after every iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class QuestionInsertBenchmark {
+
+    private static final int QUESTIONS = 1000;
+
+    private static final int BATCH_SIZE = 50;
+
+    @Param("jdbc:postgresql://localhost:5432/quora")
+    private String url;
+
+    @Param("postgres")
+    private String username;
+
+    @Param("1234")
+    private String password;
+
+    private SessionFactory sessionFactory;
+
+    private Connection connection;
+
+    private Integer userId;
+
+    @Setup
+    public void setUp() throws SQLException {
+        final StandardServiceRegistry registry = new StandardServiceRegistryBuilder()
+                .applySetting(AvailableSettings.URL, url + (url.contains("?") ? "&" : "?") + "reWriteBatchedInserts=true")
+                .applySetting(AvailableSettings.USER, username)
+                .applySetting(AvailableSettings.PASS, password)
+                .applySetting(AvailableSettings.PHYSICAL_NAMING_STRATEGY, SpringPhysicalNamingStrategy.class.getName())
+                .applySetting(AvailableSettings.IMPLICIT_NAMING_STRATEGY, SpringImplicitNamingStrategy.class.getName())
+                .applySetting(AvailableSettings.STATEMENT_BATCH_SIZE, BATCH_SIZE)
+                .applySetting(AvailableSettings.ORDER_INSERTS, true)
+                .applySetting(AvailableSettings.USE_SECOND_LEVEL_CACHE, false)
+                .applySetting(AvailableSettings.USE_QUERY_CACHE, false)
+                .build();
+        sessionFactory = new MetadataSources(registry).addAnnotatedClass(UserEntity.class).addAnnotatedClass(UserAuthTokenEntity.class)
+                .addAnnotatedClass(QuestionEntity.class).addAnnotatedClass(AnswerEntity.class).buildMetadata().buildSessionFactory();
+        connection = DriverManager.getConnection(url, username, password);
+        connection.setAutoCommit(false);
+    }
+
+    // The user is created for every iteration, so deleting it deletes its questions with it.
+    @Setup(Level.Iteration)
+    public void createUser() throws SQLException {
+        final String uuid = UUID.randomUUID().toString();
+        try (PreparedStatement statement = connection.prepareStatement("insert into users (uuid, firstname, lastname, username, email, password, salt)"
+                + " values (?, 'bench', 'bench', ?, ?, 'bench', 'bench') returning id")) {
+            statement.setString(1, uuid);
+            statement.setString(2, uuid.substring(0, 30));
+            statement.setString(3, uuid + "@bench");
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                userId = resultSet.getInt(1);
+            }
+        }
+        connection.commit();
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteUser() throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("delete from users where id = ?")) {
+            statement.setInt(1, userId);
+            statement.executeUpdate();
+        }
+        connection.commit();
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+        sessionFactory.close();
+    }
+
+    // The statements Hibernate ran for the identity ids: every insert is a round trip of its own, to read the new id.
+    @Benchmark
+    @OperationsPerInvocation(QUESTIONS)
+    public int insertWithIdentityIds() throws SQLException {
+        int lastId = 0;
+        try (PreparedStatement statement = connection.prepareStatement("insert into question (uuid, content, date, user_id) values (?, ?, ?, ?) returning id")) {
+            final Timestamp date = Timestamp.from(ZonedDateTime.now().toInstant());
+            for (int i = 0; i < QUESTIONS; i++) {
+                statement.setString(1, UUID.randomUUID().toString());
+                statement.setString(2, "Benchmark question " + i);
+                statement.setTimestamp(3, date);
+                statement.setInt(4, userId);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    resultSet.next();
+                    lastId = resultSet.getInt(1);
+                }
+            }
+        }
+        connection.commit();
+        return lastId;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUESTIONS)
+    public int insertWithPooledIds() {
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            final UserEntity user = session.getReference(UserEntity.class, userId);
+            final ZonedDateTime date = ZonedDateTime.now();
+            QuestionEntity question = null;
+            for (int i = 0; i < QUESTIONS; i++) {
+                question = new QuestionEntity();
+                question.setUuid(UUID.randomUUID().toString());
+                question.setContent("Benchmark question " + i);
+                question.setDate(date);
+                question.setUser(user);
+                session.persist(question);
+            }
+            session.getTransaction().commit();
+            return question.getId();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.upgrad.quora.bench;
+
+import com.upgrad.quora.service.business.QuestionSuggestionIndex;
+import com.upgrad.quora.service.dto.QuestionDetails;
+import com.upgrad.quora.service.dto.QuestionSuggestion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class measures a suggestion from the in-memory trie, for a prefix of one letter, of a word and of several words,
+ * with the trie loaded the way it is at startup. Only the lookup is measured, not the request around it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class QuestionSuggestionBenchmark {
+
+    private static final int LIMIT = 10;
+
+    @Param({"10000", "1000000"})
+    private int size;
+
+    private QuestionSuggestionIndex index;
+
+    private String letterPrefix;
+
+    private String wordPrefix;
+
+    private String sentencePrefix;
+
+    @Setup
+    public void setUp() {
+        index = new QuestionSuggestionIndex(LIMIT, 64);
+        final List<QuestionDetails> questions = Listings.questions(size);
+        final List<Object[]> rows = new ArrayList<>(questions.size());
+        for (final QuestionDetails question : questions) {
+            rows.add(new Object[]{question.getId(), question.getUuid(), question.getContent()});
+        }
+        index.startLoading();
+        index.addLoaded(index.prepare(rows));
+        index.finishLoading();
+        final String content = questions.get(questions.size() / 2).getContent();
+        letterPrefix = content.substring(0, 1);
+        wordPrefix = content.substring(0, content.indexOf(' ') + 1);
+        sentencePrefix = content.substring(0, content.length() / 2);
+    }
+
+    @Benchmark
+    public List<QuestionSuggestion> suggestLetter() {
+        return index.suggest(letterPrefix, LIMIT);
+    }
+
+    @Benchmark
+    public List<QuestionSuggestion> suggestWord() {
+        return index.suggest(wordPrefix, LIMIT);
+    }
+
+    @Benchmark
+    public List<QuestionSuggestion> suggestSentence() {
+        return index.suggest(sentencePrefix, LIMIT);
+    }
+}
@@ -0,0 +1,57 @@
+package com.upgrad.quora.bench;
+
+import com.upgrad.quora.api.controller.AnswerController;
+import com.upgrad.quora.api.controller.QuestionController;
+import com.upgrad.quora.api.model.AnswerDetailsResponse;
+import com.upgrad.quora.api.model.QuestionDetailsResponse;
+import com.upgrad.quora.service.dto.AnswerDetails;
+import com.upgrad.quora.service.dto.QuestionDetails;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class measures the mapping of the question and answer listings to their responses, for a page of each size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseMappingBenchmark {
+
+    @Param({"20", "100", "1000"})
+    private int size;
+
+    private List<QuestionDetails> questions;
+
+    private List<AnswerDetails> answers;
+
+    @Setup
+    public void setUp() {
+        questions = Listings.questions(size);
+        answers = Listings.answers(size);
+    }
+
+    @Benchmark
+    public List<QuestionDetailsResponse> mapQuestions() {
+        return QuestionController.toQuestionDetailsResponses(questions);
+    }
+
+    @Benchmark
+    public List<AnswerDetailsResponse> mapAnswers() {
+        return AnswerController.toAnswerDetailsResponses(questions.get(0), answers);
+    }
+}
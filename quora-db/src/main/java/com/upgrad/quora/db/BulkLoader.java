@@ -0,0 +1,348 @@
+package com.upgrad.quora.db;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.SecureRandom;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+
+/**
+ * This class loads users, questions and answers from CSV or NDJSON files straight into the database, for corpora far
+ * too large to post through the API one question at a time.
+ * <p>
+ * Every file is streamed with COPY into a temporary table, and moved to its table by a single INSERT ... SELECT which
+ * resolves the users by their user name and the questions by their uuid. The users are inserted first, then the
+ * questions and then the answers, so the rows of a file may refer to the rows of the files loaded with it. The ids
+ * are taken from the sequences of the tables in blocks, the same way the application takes them.
+ * Everything is loaded in a single transaction, so a file which fails to load leaves the database as it was.
+ * <p>
+ * The columns are named as in the API:
+ * <ul>
+ * <li>users: firstName, lastName, userName, email, country, aboutMe, dob, role, contactNumber, and the password and
+ * salt as stored by the application. A user loaded without them cannot sign in until its password is reset.</li>
+ * <li>questions: userName, content, and optionally uuid and date. Give the uuid to refer to the question from the
+ * answers.</li>
+ * <li>answers: userName, questionId (the uuid of the question), answer, and optionally uuid and date.</li>
+ * </ul>
+ * A user whose user name or email is taken, and a question or answer whose uuid is taken, is skipped, so a load can
+ * be run again after a failure. So is a question or answer whose user or question does not exist.
+ * <p>
+ * The connection settings are read from config/localhost.properties, and may be overridden with system properties:
+ * <pre>
+ * java -cp quora-db/target/quora-db.jar:&lt;classpath&gt; com.upgrad.quora.db.BulkLoader \
+ *     --users users.csv --questions questions.ndjson --answers answers.csv
+ * </pre>
+ * where the classpath is printed by mvn -pl quora-db dependency:build-classpath.
+ * The application builds its in-memory indexes of the questions at startup, so it must be restarted to see the
+ * questions loaded while it runs.
+ */
+public class BulkLoader {
+
+    private static final String[] USER_COLUMNS = {"firstName", "lastName", "userName", "email", "password", "salt", "country", "aboutMe", "dob", "role", "contactNumber"};
+
+    private static final String[] QUESTION_COLUMNS = {"uuid", "userName", "content", "date"};
+
+    private static final String[] ANSWER_COLUMNS = {"uuid", "userName", "questionId", "answer", "date"};
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final Connection connection;
+
+    private boolean answersResolved;
+
+    public BulkLoader(final Connection connection) {
+        this.connection = connection;
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final Map<String, Path> files = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            files.put(args[i], Paths.get(args[i + 1]));
+        }
+        if (files.isEmpty() || args.length % 2 != 0 || !files.keySet().stream().allMatch(option -> option.matches("--(users|questions|answers)"))) {
+            System.err.println("Usage: BulkLoader [--users FILE] [--questions FILE] [--answers FILE]");
+            System.exit(2);
+        }
+        try (Connection connection = openConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                final Map<String, LoadResult> results = new BulkLoader(connection).load(files.get("--users"), files.get("--questions"), files.get("--answers"));
+                connection.commit();
+                results.forEach((name, result) -> result.print(name));
+            } catch (IOException | SQLException e) {
+                connection.rollback();
+                System.err.println("Nothing was loaded: " + e.getMessage());
+                System.exit(1);
+            }
+        }
+    }
+
+    /*
+     * This method loads the files which are not null, in the transaction of the connection, and returns the outcome
+     * of every file loaded by the name of its table.
+     * Every file is staged before any row is inserted, so the answer count of a question loaded with its answers is
+     * known when the question is inserted, and only the questions which were in the database before the load have
+     * their answer count updated afterwards.
+     */
+    public Map<String, LoadResult> load(final Path users, final Path questions, final Path answers) throws IOException, SQLException {
+        final Map<String, LoadResult> results = new LinkedHashMap<>();
+        final long[] read = new long[3];
+        final long[] nanos = new long[3];
+        long start = System.nanoTime();
+        if (users != null) {
+            read[0] = stageUsers(users);
+            nanos[0] = System.nanoTime() - start;
+        }
+        start = System.nanoTime();
+        if (questions != null) {
+            read[1] = stageQuestions(questions);
+            nanos[1] = System.nanoTime() - start;
+        }
+        start = System.nanoTime();
+        if (answers != null) {
+            read[2] = stageAnswers(answers);
+            nanos[2] = System.nanoTime() - start;
+        }
+        if (users != null) {
+            start = System.nanoTime();
+            final long inserted = insertUsers();
+            results.put("users", new LoadResult(read[0], inserted, nanos[0] + System.nanoTime() - start));
+        }
+        if (questions != null) {
+            start = System.nanoTime();
+            final long inserted = insertQuestions(answers != null);
+            results.put("questions", new LoadResult(read[1], inserted, nanos[1] + System.nanoTime() - start));
+        }
+        if (answers != null) {
+            start = System.nanoTime();
+            final long inserted = insertAnswers(questions != null);
+            results.put("answers", new LoadResult(read[2], inserted, nanos[2] + System.nanoTime() - start));
+        }
+        return results;
+    }
+
+    /*
+     * This method stages the users. A user is given the role of nonadmin unless the file gives another one, and a
+     * random salt and password when the file does not give them, which matches no password anyone can type.
+     */
+    private long stageUsers(final Path file) throws IOException, SQLException {
+        execute("CREATE TEMPORARY TABLE user_load (line bigint, uuid text, firstname text, lastname text, username text, email text, password text, salt text, country text, aboutme text, dob text, role text, contactnumber text) ON COMMIT DROP");
+        try (RecordReader reader = RecordReader.open(file, USER_COLUMNS);
+             CopyRowWriter writer = new CopyRowWriter(connection, "COPY user_load FROM STDIN")) {
+            for (String[] user = reader.next(); user != null; user = reader.next()) {
+                require(reader, user, USER_COLUMNS, 0, 1, 2, 3);
+                final boolean withPassword = user[4] != null && user[5] != null;
+                writer.writeRow(writer.getRowCount(), UUID.randomUUID(), user[0], user[1], user[2], user[3],
+                        withPassword ? user[4] : randomString(), withPassword ? user[5] : randomString(),
+                        user[6], user[7], user[8], user[9] == null ? "nonadmin" : user[9], user[10]);
+            }
+            return writer.getRowCount();
+        }
+    }
+
+    private long stageQuestions(final Path file) throws IOException, SQLException {
+        execute("CREATE TEMPORARY TABLE question_load (line bigint, uuid text, username text, content text, date timestamp) ON COMMIT DROP");
+        try (RecordReader reader = RecordReader.open(file, QUESTION_COLUMNS);
+             CopyRowWriter writer = new CopyRowWriter(connection, "COPY question_load FROM STDIN")) {
+            for (String[] question = reader.next(); question != null; question = reader.next()) {
+                require(reader, question, QUESTION_COLUMNS, 1, 2);
+                writer.writeRow(writer.getRowCount(), question[0] == null ? UUID.randomUUID() : question[0], question[1], question[2], question[3]);
+            }
+            return writer.getRowCount();
+        }
+    }
+
+    private long stageAnswers(final Path file) throws IOException, SQLException {
+        execute("CREATE TEMPORARY TABLE answer_load (line bigint, uuid text, username text, question_uuid text, ans text, date timestamp) ON COMMIT DROP");
+        try (RecordReader reader = RecordReader.open(file, ANSWER_COLUMNS);
+             CopyRowWriter writer = new CopyRowWriter(connection, "COPY answer_load FROM STDIN")) {
+            for (String[] answer = reader.next(); answer != null; answer = reader.next()) {
+                require(reader, answer, ANSWER_COLUMNS, 1, 2, 3);
+                writer.writeRow(writer.getRowCount(), answer[0] == null ? UUID.randomUUID() : answer[0], answer[1], answer[2], answer[3], answer[4]);
+            }
+            return writer.getRowCount();
+        }
+    }
+
+    // A user may clash on its user name or on its email, so any conflict skips the user.
+    private long insertUsers() throws SQLException {
+        return insert("user_load", "users_id_seq",
+                "INSERT INTO users (id, uuid, firstname, lastname, username, email, password, salt, country, aboutme, dob, role, contactnumber) "
+                        + "SELECT %s, l.uuid, l.firstname, l.lastname, l.username, l.email, l.password, l.salt, l.country, l.aboutme, l.dob, l.role, l.contactnumber "
+                        + "FROM user_load l %s ON CONFLICT DO NOTHING RETURNING 1",
+                " SELECT count(*) FROM inserted");
+    }
+
+    /*
+     * This method inserts the questions, with the number of their answers in the staged answers as their answer count.
+     * The ids of the questions inserted are kept in question_inserted, so the answers to the other questions can be
+     * counted once they are inserted.
+     */
+    private long insertQuestions(final boolean withAnswers) throws SQLException {
+        if (withAnswers) {
+            resolveAnswers();
+        }
+        execute("CREATE TEMPORARY TABLE question_inserted (id integer PRIMARY KEY) ON COMMIT DROP");
+        final String counts = withAnswers
+                ? "LEFT JOIN (SELECT question_uuid, count(*) AS count FROM answer_resolved GROUP BY question_uuid) c ON c.question_uuid = l.uuid "
+                : "";
+        return insert("question_load", "question_id_seq",
+                "INSERT INTO question (id, uuid, content, date, user_id, answer_count) "
+                        + "SELECT %s, l.uuid, l.content, coalesce(l.date, now()), u.id, " + (withAnswers ? "coalesce(c.count, 0) " : "0 ")
+                        + "FROM question_load l %s JOIN users u ON u.username = l.username " + counts
+                        + "ON CONFLICT (uuid) DO NOTHING RETURNING id",
+                ", kept AS (INSERT INTO question_inserted SELECT id FROM inserted RETURNING 1) SELECT count(*) FROM kept");
+    }
+
+    /*
+     * This method resolves the users of the staged answers, and drops the answers which would not be inserted: those
+     * whose user does not exist and those whose uuid is taken, by an answer in the database or by an earlier line of
+     * the file. The answers left are exactly the ones inserted once their questions are, numbered again from 0 so
+     * they take no more ids than they need.
+     */
+    private void resolveAnswers() throws SQLException {
+        if (answersResolved) {
+            return;
+        }
+        execute("CREATE TEMPORARY TABLE answer_resolved ON COMMIT DROP AS "
+                + "SELECT row_number() OVER (ORDER BY r.line) - 1 AS line, r.uuid, r.user_id, r.question_uuid, r.ans, r.date "
+                + "FROM (SELECT DISTINCT ON (l.uuid) l.line, l.uuid, u.id AS user_id, l.question_uuid, l.ans, l.date "
+                + "FROM answer_load l JOIN users u ON u.username = l.username "
+                + "WHERE NOT EXISTS (SELECT 1 FROM answer a WHERE a.uuid = l.uuid) ORDER BY l.uuid, l.line) r");
+        execute("ANALYZE answer_resolved");
+        answersResolved = true;
+    }
+
+    // The answers to the questions which were in the database before the load are added to their answer counts.
+    private long insertAnswers(final boolean withQuestions) throws SQLException {
+        resolveAnswers();
+        final String loadedBefore = withQuestions ? "AND NOT EXISTS (SELECT 1 FROM question_inserted n WHERE n.id = q.id) " : "";
+        return insert("answer_resolved", "answer_id_seq",
+                "INSERT INTO answer (id, uuid, ans, date, user_id, question_id) "
+                        + "SELECT %s, l.uuid, l.ans, coalesce(l.date, now()), l.user_id, q.id "
+                        + "FROM answer_resolved l %s JOIN question q ON q.uuid = l.question_uuid RETURNING question_id",
+                ", counted AS (UPDATE question q SET answer_count = q.answer_count + c.count "
+                        + "FROM (SELECT question_id, count(*) AS count FROM inserted GROUP BY question_id) c WHERE q.id = c.question_id "
+                        + loadedBefore + "RETURNING 1) SELECT count(*) FROM inserted");
+    }
+
+    /*
+     * This method moves the staged rows to their table and returns the number of rows inserted.
+     * The rows are numbered from 0 in the order of the file, and every block of as many rows as the sequence is
+     * incremented by gets the ids ending with one value of the sequence. The application reads a value of the sequence
+     * the same way, as the last id of a block, so the ids taken by the loader and by the application never overlap.
+     * The statement ends with the result query, which may first add more statements on the inserted rows.
+     */
+    private long insert(final String stagingTable, final String sequence, final String insertSql, final String resultSql) throws SQLException {
+        execute("ANALYZE " + stagingTable);
+        final int blockSize = getIncrement(sequence);
+        final String blocks = "WITH blocks AS (SELECT block, nextval('" + sequence + "') AS last_id "
+                + "FROM generate_series(0, (SELECT coalesce(max(line), 0) FROM " + stagingTable + ") / " + blockSize + ") block), ";
+        final String id = "b.last_id - " + (blockSize - 1) + " + l.line % " + blockSize;
+        final String join = "JOIN blocks b ON b.block = l.line / " + blockSize;
+        final String sql = blocks + "inserted AS (" + String.format(insertSql, id, join) + ")" + resultSql;
+        try (Statement statement = connection.createStatement(); ResultSet result = statement.executeQuery(sql)) {
+            result.next();
+            return result.getLong(1);
+        }
+    }
+
+    private int getIncrement(final String sequence) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT increment_by FROM pg_sequences WHERE schemaname = current_schema() AND sequencename = ?")) {
+            statement.setString(1, sequence);
+            try (ResultSet result = statement.executeQuery()) {
+                if (!result.next()) {
+                    throw new SQLException("The sequence " + sequence + " does not exist, migrate the database first");
+                }
+                return result.getInt(1);
+            }
+        }
+    }
+
+    private void execute(final String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private static void require(final RecordReader reader, final String[] record, final String[] columns, final int... required) throws IOException {
+        for (final int position : required) {
+            if (record[position] == null) {
+                throw new IOException("The record ending on line " + reader.getLineNumber() + " has no " + columns[position]);
+            }
+        }
+    }
+
+    private static String randomString() {
+        final byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        return Base64.getEncoder().encodeToString(bytes);
+    }
+
+    // Opens a connection with the settings of config/localhost.properties, overridden by the system properties.
+    static Connection openConnection() throws IOException, SQLException {
+        final Properties settings = getConnectionSettings();
+        final String url = "jdbc:postgresql://" + settings.getProperty("server.host") + ":" + settings.getProperty("server.port") + "/" + settings.getProperty("database.name");
+        return DriverManager.getConnection(url, settings.getProperty("database.user"), settings.getProperty("database.password"));
+    }
+
+    private static Properties getConnectionSettings() throws IOException {
+        final Properties settings = new Properties();
+        try (InputStream in = BulkLoader.class.getResourceAsStream("/config/localhost.properties")) {
+            if (in != null) {
+                settings.load(in);
+            }
+        }
+        for (final String name : settings.stringPropertyNames()) {
+            settings.setProperty(name, System.getProperty(name, settings.getProperty(name)));
+        }
+        return settings;
+    }
+
+    /**
+     * This class holds the outcome of loading one file.
+     */
+    public static class LoadResult {
+
+        private final long read;
+
+        private final long inserted;
+
+        private final long nanos;
+
+        LoadResult(final long read, final long inserted, final long nanos) {
+            this.read = read;
+            this.inserted = inserted;
+            this.nanos = nanos;
+        }
+
+        public long getRead() {
+            return read;
+        }
+
+        public long getInserted() {
+            return inserted;
+        }
+
+        // The rows read from the file per second, from the first row read to the last one inserted.
+        public double getRowsPerSecond() {
+            return read / Math.max(nanos / 1e9, 1e-9);
+        }
+
+        void print(final String name) {
+            System.out.printf("%s: %d read, %d inserted, %d skipped in %.1f s (%.0f rows/s)%n",
+                    name, read, inserted, read - inserted, nanos / 1e9, getRowsPerSecond());
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.upgrad.quora.db;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * This class streams rows to a COPY FROM STDIN command in the text format of PostgreSQL: the values of a row are
+ * separated by tabs, a null value is written as \N and the backslashes, tabs and line breaks of a value are escaped.
+ * The rows are sent to the database as they are written, so no more than a buffer of them is ever held in memory.
+ */
+class CopyRowWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Writer writer;
+
+    private long rowCount;
+
+    CopyRowWriter(final Connection connection, final String copySql) throws SQLException {
+        final PGCopyOutputStream out = new PGCopyOutputStream(connection.unwrap(PGConnection.class), copySql, BUFFER_SIZE);
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    void writeRow(final Object... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write('\t');
+            }
+            if (values[i] == null) {
+                writer.write("\\N");
+            } else {
+                writeEscaped(values[i].toString());
+            }
+        }
+        writer.write('\n');
+        rowCount++;
+    }
+
+    long getRowCount() {
+        return rowCount;
+    }
+
+    // Closing the writer ends the COPY command, which fails here if any row was rejected by the database.
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    private void writeEscaped(final String value) throws IOException {
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            final String escaped = c == '\\' ? "\\\\" : c == '\t' ? "\\t" : c == '\n' ? "\\n" : c == '\r' ? "\\r" : null;
+            if (escaped != null) {
+                writer.write(value, start, i - start);
+                writer.write(escaped);
+                start = i + 1;
+            }
+        }
+        writer.write(value, start, value.length() - start);
+    }
+}
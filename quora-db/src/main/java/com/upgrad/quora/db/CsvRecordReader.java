@@ -0,0 +1,98 @@
+package com.upgrad.quora.db;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class reads a CSV file whose first line names the columns. A value may be quoted with double quotes, in which
+ * case it may hold commas, line breaks and doubled double quotes. An empty value which is not quoted is read as null.
+ */
+class CsvRecordReader extends RecordReader {
+
+    // The position in the records of every column of the file, -1 for the columns which were not asked for.
+    private final int[] positions;
+
+    CsvRecordReader(final BufferedReader reader, final String[] columns) throws IOException {
+        super(reader, columns);
+        final List<String> header = readFields();
+        if (header == null) {
+            throw new IOException("The file is empty, its first line must name the columns");
+        }
+        positions = new int[header.size()];
+        for (int i = 0; i < header.size(); i++) {
+            positions[i] = positionOf(header.get(i).trim());
+        }
+    }
+
+    @Override
+    public String[] next() throws IOException {
+        final List<String> fields = readFields();
+        if (fields == null) {
+            return null;
+        }
+        if (fields.size() > positions.length) {
+            throw new IOException("Line " + lineNumber + " has more values than the header has columns");
+        }
+        final String[] record = new String[columnCount];
+        for (int i = 0; i < fields.size(); i++) {
+            if (positions[i] >= 0) {
+                record[positions[i]] = fields.get(i);
+            }
+        }
+        return record;
+    }
+
+    // This method reads the fields of the next record, which spans several lines when a quoted value holds a line break.
+    private List<String> readFields() throws IOException {
+        String line = readLine();
+        if (line == null) {
+            return null;
+        }
+        final List<String> fields = new ArrayList<>();
+        final StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean wasQuoted = false;
+        int i = 0;
+        while (true) {
+            if (i == line.length()) {
+                if (!quoted) {
+                    fields.add(toValue(field, wasQuoted));
+                    return fields;
+                }
+                line = readLine();
+                if (line == null) {
+                    throw new IOException("Line " + lineNumber + " ends inside a quoted value");
+                }
+                field.append('\n');
+                i = 0;
+                continue;
+            }
+            final char c = line.charAt(i++);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i < line.length() && line.charAt(i) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+                wasQuoted = true;
+            } else if (c == ',') {
+                fields.add(toValue(field, wasQuoted));
+                field.setLength(0);
+                wasQuoted = false;
+            } else {
+                field.append(c);
+            }
+        }
+    }
+
+    private static String toValue(final StringBuilder field, final boolean wasQuoted) {
+        return field.length() == 0 && !wasQuoted ? null : field.toString();
+    }
+}
@@ -0,0 +1,423 @@
+package com.upgrad.quora.db;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class generates a synthetic dataset of users, questions and answers of production size, and loads it straight
+ * into the database with COPY, from several connections in parallel.
+ * <p>
+ * The activity is skewed the way real activity is: the authors of the questions and of the answers are drawn from a
+ * Zipf distribution over the users, so a few users post most of the content, and the questions of the answers are
+ * drawn from a Zipf distribution over the questions, so a few questions get most of the answers while most get none.
+ * The words of the contents are drawn from a Zipf distribution over a vocabulary, as in natural text. The questions
+ * are dated evenly over the days before the end date, in the order of their ids, and every answer after its question.
+ * <p>
+ * The rows are generated in chunks of a fixed size, each from a random generator seeded with the seed and the position
+ * of the chunk, so the same settings generate the same rows whatever the number of threads. Every generated user has
+ * the password given, so the load tests can sign in as any of them.
+ * <p>
+ * The ids are reserved from the sequences of the tables before the load, past the highest id in use, and the answer
+ * counts of the questions are set once the answers are loaded. Every chunk is committed on its own, so the dataset is
+ * meant for a database the application is not writing to, typically one just set up with mvn -pl quora-db -Psetup.
+ * <pre>
+ * java -cp quora-db/target/quora-db.jar:&lt;classpath&gt; com.upgrad.quora.db.DatasetGenerator \
+ *     --users 1000000 --questions 5000000 --answers 20000000 --seed 42 --threads 8
+ * </pre>
+ * The other settings are --answer-skew and --author-skew, the exponents of the Zipf distributions, 1.0 and 1.2 by
+ * default, --password, "password" by default, and --until, the end date of the questions, today by default.
+ * The connection settings are read the same way as by the {@link BulkLoader}.
+ */
+public class DatasetGenerator {
+
+    // The rows of a chunk are generated from one random generator and sent by one COPY command.
+    private static final int CHUNK_SIZE = 50000;
+
+    private static final int VOCABULARY_SIZE = 20000;
+
+    private static final double WORD_SKEW = 1.0;
+
+    private static final int DAYS = 365;
+
+    private static final String[] SYLLABLES = {"ba", "be", "bi", "bo", "da", "de", "di", "do", "ka", "ke", "ki", "ko", "la",
+            "le", "li", "lo", "ma", "me", "mi", "mo", "na", "ne", "ni", "no", "ra", "re", "ri", "ro", "sa", "se", "si", "so",
+            "ta", "te", "ti", "to", "va", "ve", "vi", "vo"};
+
+    private static final String[] FIRST_NAMES = {"Aarav", "Ananya", "Arjun", "Diya", "Ishaan", "Kavya", "Rohan", "Saanvi",
+            "Vihaan", "Zara", "Alex", "Maria", "John", "Wei", "Fatima", "Lucas", "Emma", "Noah", "Olivia", "Yuki"};
+
+    private static final String[] LAST_NAMES = {"Sharma", "Patel", "Iyer", "Reddy", "Gupta", "Khan", "Singh", "Das",
+            "Smith", "Garcia", "Chen", "Kim", "Silva", "Muller", "Rossi", "Tanaka", "Nguyen", "Cohen", "Okafor", "Novak"};
+
+    private static final String[] COUNTRIES = {"India", "India", "India", "United States", "United Kingdom", "Canada",
+            "Germany", "Brazil", "Japan", "Nigeria"};
+
+    private final Settings settings;
+
+    private final String[] vocabulary;
+
+    private final ZipfSampler wordSampler = new ZipfSampler(VOCABULARY_SIZE, WORD_SKEW);
+
+    private final ZipfSampler questionAuthorSampler;
+
+    private final ZipfSampler answerAuthorSampler;
+
+    private final ZipfSampler answerQuestionSampler;
+
+    // The strides which spread the ranks drawn over the rows, see rankToIndex.
+    private final long questionAuthorStride;
+
+    private final long answerAuthorStride;
+
+    private final long answerQuestionStride;
+
+    // The salt and hash of the password of every user, as the application stores them.
+    private final String salt;
+
+    private final String passwordHash;
+
+    private final LocalDateTime until;
+
+    private long firstUserId;
+
+    private long firstQuestionId;
+
+    private long firstAnswerId;
+
+    public DatasetGenerator(final Settings settings) {
+        this.settings = settings;
+        this.vocabulary = buildVocabulary(new SplittableRandom(settings.seed));
+        this.questionAuthorSampler = new ZipfSampler(settings.users, settings.authorSkew);
+        this.answerAuthorSampler = new ZipfSampler(settings.users, settings.authorSkew);
+        this.answerQuestionSampler = settings.questions > 0 ? new ZipfSampler(settings.questions, settings.answerSkew) : null;
+        this.questionAuthorStride = stride(settings.seed + 1, settings.users);
+        this.answerAuthorStride = stride(settings.seed + 2, settings.users);
+        this.answerQuestionStride = stride(settings.seed + 3, settings.questions);
+        final byte[] saltBytes = new byte[32];
+        new Random(settings.seed).nextBytes(saltBytes);
+        this.salt = Base64.getEncoder().encodeToString(saltBytes);
+        this.passwordHash = hashPassword(settings.password, saltBytes);
+        this.until = settings.until.atStartOfDay();
+    }
+
+    public static void main(final String[] args) throws Exception {
+        final Map<String, String> options = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i], args[i + 1]);
+        }
+        final Settings settings;
+        try {
+            if (args.length % 2 != 0 || !options.keySet().stream().allMatch(option ->
+                    option.matches("--(users|questions|answers|seed|threads|answer-skew|author-skew|password|until)"))) {
+                throw new IllegalArgumentException();
+            }
+            settings = new Settings(options);
+        } catch (RuntimeException e) {
+            System.err.println("Usage: DatasetGenerator --users N --questions N --answers N [--seed N] [--threads N] "
+                    + "[--answer-skew X] [--author-skew X] [--password P] [--until YYYY-MM-DD]");
+            System.exit(2);
+            return;
+        }
+        new DatasetGenerator(settings).generate();
+    }
+
+    public void generate() throws IOException, SQLException, InterruptedException {
+        reserveIds();
+        final BlockingQueue<Connection> connections = new ArrayBlockingQueue<>(settings.threads);
+        final ExecutorService executor = Executors.newFixedThreadPool(settings.threads);
+        try {
+            for (int i = 0; i < settings.threads; i++) {
+                final Connection connection = BulkLoader.openConnection();
+                connection.setAutoCommit(false);
+                connections.add(connection);
+            }
+            load(executor, connections, "users", settings.users, "COPY users (id, uuid, firstname, lastname, username, email, password, salt, country, aboutme, dob, role, contactnumber) FROM STDIN", this::writeUsers);
+            load(executor, connections, "questions", settings.questions, "COPY question (id, uuid, content, date, user_id, answer_count) FROM STDIN", this::writeQuestions);
+            load(executor, connections, "answers", settings.answers, "COPY answer (id, uuid, ans, date, user_id, question_id) FROM STDIN", this::writeAnswers);
+            try (Connection connection = BulkLoader.openConnection()) {
+                countAnswers(connection);
+                for (final String table : new String[]{"users", "question", "answer"}) {
+                    execute(connection, "ANALYZE " + table);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+            for (final Connection connection : connections) {
+                connection.close();
+            }
+        }
+    }
+
+    /*
+     * This method takes the ids of the rows to generate from the sequences of their tables, past both the highest id in
+     * use and the last value read from the sequence. The application reads every value as the last id of its block, so
+     * its next block starts right after the reserved ids.
+     */
+    private void reserveIds() throws IOException, SQLException {
+        try (Connection connection = BulkLoader.openConnection()) {
+            firstUserId = reserve(connection, "users", "users_id_seq", settings.users);
+            firstQuestionId = reserve(connection, "question", "question_id_seq", settings.questions);
+            firstAnswerId = reserve(connection, "answer", "answer_id_seq", settings.answers);
+        }
+    }
+
+    private static long reserve(final Connection connection, final String table, final String sequence, final long count) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("SELECT greatest((SELECT last_value FROM " + sequence + "), (SELECT coalesce(max(id), 0) FROM " + table + ")) AS base")) {
+            result.next();
+            final long base = result.getLong(1);
+            if (count > 0) {
+                execute(connection, "SELECT setval('" + sequence + "', " + (base + count) + ")");
+            }
+            return base + 1;
+        }
+    }
+
+    // Loads the rows of a table chunk by chunk, as many chunks at a time as there are connections.
+    private void load(final ExecutorService executor, final BlockingQueue<Connection> connections, final String name, final long rows,
+                      final String copySql, final ChunkWriter chunkWriter) throws SQLException, InterruptedException {
+        final long start = System.nanoTime();
+        final AtomicLong loaded = new AtomicLong();
+        final List<Future<?>> futures = new ArrayList<>();
+        for (long chunk = 0; chunk * CHUNK_SIZE < rows; chunk++) {
+            final long first = chunk * CHUNK_SIZE;
+            final long last = Math.min(rows, first + CHUNK_SIZE);
+            final long chunkIndex = chunk;
+            futures.add(executor.submit(() -> {
+                final Connection connection = connections.take();
+                try {
+                    try (CopyRowWriter writer = new CopyRowWriter(connection, copySql)) {
+                        chunkWriter.write(writer, chunkRandom(name, chunkIndex), first, last);
+                    }
+                    connection.commit();
+                } catch (IOException | SQLException e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connections.add(connection);
+                }
+                final long done = loaded.addAndGet(last - first);
+                if (last % (CHUNK_SIZE * 20) == 0 || done == rows) {
+                    System.out.printf("%s: %d of %d loaded%n", name, done, rows);
+                }
+                return null;
+            }));
+        }
+        for (final Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                futures.forEach(other -> other.cancel(true));
+                throw new SQLException("Loading the " + name + " failed, the chunks loaded before stay in the database", e.getCause());
+            }
+        }
+        final double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%s: %d loaded in %.1f s (%.0f rows/s)%n", name, rows, seconds, rows / Math.max(seconds, 1e-9));
+    }
+
+    private void writeUsers(final CopyRowWriter writer, final SplittableRandom random, final long first, final long last) throws IOException {
+        for (long i = first; i < last; i++) {
+            final String username = "u" + Long.toString(settings.seed, 36) + "_" + Long.toString(i, 36);
+            writer.writeRow(firstUserId + i, uuid(random), pick(random, FIRST_NAMES), pick(random, LAST_NAMES), username,
+                    username + "@example.com", passwordHash, salt, pick(random, COUNTRIES), sentence(random, 4, 45),
+                    LocalDate.of(1960 + random.nextInt(45), 1 + random.nextInt(12), 1 + random.nextInt(28)).toString(),
+                    "nonadmin", String.valueOf(6000000000L + random.nextLong(4000000000L)));
+        }
+    }
+
+    private void writeQuestions(final CopyRowWriter writer, final SplittableRandom random, final long first, final long last) throws IOException {
+        for (long i = first; i < last; i++) {
+            writer.writeRow(firstQuestionId + i, uuid(random), sentence(random, 6 + random.nextInt(20), 499) + "?", questionDate(i),
+                    firstUserId + rankToIndex(questionAuthorSampler.sample(random), settings.users, questionAuthorStride), 0);
+        }
+    }
+
+    private void writeAnswers(final CopyRowWriter writer, final SplittableRandom random, final long first, final long last) throws IOException {
+        final long untilSeconds = until.toEpochSecond(ZoneOffset.UTC);
+        for (long i = first; i < last; i++) {
+            final long question = rankToIndex(answerQuestionSampler.sample(random), settings.questions, answerQuestionStride);
+            final long askedSeconds = questionDate(question).toEpochSecond(ZoneOffset.UTC);
+            final LocalDateTime date = LocalDateTime.ofEpochSecond(askedSeconds + random.nextLong(Math.max(1, untilSeconds - askedSeconds)), 0, ZoneOffset.UTC);
+            writer.writeRow(firstAnswerId + i, uuid(random), sentence(random, 5 + random.nextInt(30), 255), date,
+                    firstUserId + rankToIndex(answerAuthorSampler.sample(random), settings.users, answerAuthorStride), firstQuestionId + question);
+        }
+    }
+
+    // The answers were drawn at random, so the questions are given their counts in a single statement once they are in.
+    private void countAnswers(final Connection connection) throws SQLException {
+        if (settings.answers == 0) {
+            return;
+        }
+        final long start = System.nanoTime();
+        execute(connection, "UPDATE question q SET answer_count = c.count FROM (SELECT question_id, count(*) AS count FROM answer "
+                + "WHERE id BETWEEN " + firstAnswerId + " AND " + (firstAnswerId + settings.answers - 1) + " GROUP BY question_id) c "
+                + "WHERE q.id = c.question_id");
+        System.out.printf("answer counts: set in %.1f s%n", (System.nanoTime() - start) / 1e9);
+    }
+
+    // The questions are dated evenly over the days before the end date, the first one the earliest.
+    private LocalDateTime questionDate(final long index) {
+        final long spanSeconds = DAYS * 86400L;
+        return until.minusSeconds(spanSeconds - spanSeconds * index / Math.max(1, settings.questions));
+    }
+
+    /*
+     * This method maps a rank of a Zipf distribution to the index of a row, spreading the popular ranks over the whole
+     * table instead of leaving them at its start. The rank is multiplied by a stride coprime with the number of rows,
+     * which visits every row once, and every use has its own stride so the most active authors are not the most answered.
+     */
+    private static long rankToIndex(final int rank, final long rows, final long stride) {
+        return (rank - 1) * stride % rows;
+    }
+
+    private static long stride(final long seed, final long rows) {
+        if (rows <= 1) {
+            return 1;
+        }
+        long stride = 1 + Math.floorMod(mix(seed), rows - 1);
+        while (gcd(stride, rows) != 1) {
+            stride = stride % (rows - 1) + 1;
+        }
+        return stride;
+    }
+
+    private SplittableRandom chunkRandom(final String table, final long chunk) {
+        return new SplittableRandom(mix(mix(mix(settings.seed) ^ table.hashCode()) + chunk));
+    }
+
+    private String sentence(final SplittableRandom random, final int words, final int maxLength) {
+        final StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            final String word = vocabulary[wordSampler.sample(random) - 1];
+            if (sentence.length() + word.length() + 1 > maxLength) {
+                break;
+            }
+            if (i > 0) {
+                sentence.append(' ');
+            }
+            sentence.append(word);
+        }
+        return sentence.toString();
+    }
+
+    private static String[] buildVocabulary(final SplittableRandom random) {
+        final String[] vocabulary = new String[VOCABULARY_SIZE];
+        for (int i = 0; i < VOCABULARY_SIZE; i++) {
+            // The frequent words are the short ones, as in natural text.
+            final int syllables = 1 + Math.min(4, (int) Math.log10(i + 1)) + random.nextInt(2);
+            final StringBuilder word = new StringBuilder();
+            for (int j = 0; j < syllables; j++) {
+                word.append(pick(random, SYLLABLES));
+            }
+            vocabulary[i] = word.toString();
+        }
+        return vocabulary;
+    }
+
+    private static String uuid(final SplittableRandom random) {
+        return new UUID(random.nextLong() & 0xffffffffffff0fffL | 0x4000L, random.nextLong() & 0x3fffffffffffffffL | 0x8000000000000000L).toString();
+    }
+
+    private static String pick(final SplittableRandom random, final String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    // The hash of PasswordCryptographyProvider of quora-service: PBKDF2 with HMAC-SHA512, in upper case hexadecimal.
+    private static String hashPassword(final String password, final byte[] salt) {
+        try {
+            final byte[] hash = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA512")
+                    .generateSecret(new PBEKeySpec(password.toCharArray(), salt, 1000, 64)).getEncoded();
+            final StringBuilder hex = new StringBuilder();
+            for (final byte b : hash) {
+                hex.append(String.format("%02X", b));
+            }
+            return hex.toString();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static long gcd(final long a, final long b) {
+        return b == 0 ? a : gcd(b, a % b);
+    }
+
+    // The finalizer of SplitMix64, which spreads close seeds far apart.
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static void execute(final Connection connection, final String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private interface ChunkWriter {
+        void write(CopyRowWriter writer, SplittableRandom random, long first, long last) throws IOException;
+    }
+
+    /**
+     * This class holds the settings of a generation.
+     */
+    public static class Settings {
+
+        private final int users;
+
+        private final int questions;
+
+        private final long answers;
+
+        private final long seed;
+
+        private final int threads;
+
+        private final double answerSkew;
+
+        private final double authorSkew;
+
+        private final String password;
+
+        private final LocalDate until;
+
+        public Settings(final Map<String, String> options) {
+            users = Integer.parseInt(options.getOrDefault("--users", "0"));
+            questions = Integer.parseInt(options.getOrDefault("--questions", "0"));
+            answers = Long.parseLong(options.getOrDefault("--answers", "0"));
+            seed = Long.parseLong(options.getOrDefault("--seed", "42"));
+            threads = Integer.parseInt(options.getOrDefault("--threads", String.valueOf(Runtime.getRuntime().availableProcessors())));
+            answerSkew = Double.parseDouble(options.getOrDefault("--answer-skew", "1.0"));
+            authorSkew = Double.parseDouble(options.getOrDefault("--author-skew", "1.2"));
+            password = options.getOrDefault("--password", "password");
+            until = options.containsKey("--until") ? LocalDate.parse(options.get("--until")) : LocalDate.now(ZoneOffset.UTC);
+            if (users < 1 || questions < 0 || answers < 0 || threads < 1 || (answers > 0 && questions < 1)) {
+                throw new IllegalArgumentException("At least one user is generated, and answers need questions");
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.upgrad.quora.db;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * This class reads a file holding one JSON object per line. The fields of an object which were not asked for are
+ * skipped, whatever their value, and a field whose value is null is read as null. Blank lines are ignored.
+ */
+class JsonLinesRecordReader extends RecordReader {
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    JsonLinesRecordReader(final BufferedReader reader, final String[] columns) {
+        super(reader, columns);
+    }
+
+    @Override
+    public String[] next() throws IOException {
+        String line = readLine();
+        while (line != null && line.trim().isEmpty()) {
+            line = readLine();
+        }
+        if (line == null) {
+            return null;
+        }
+        final String[] record = new String[columnCount];
+        try (JsonParser parser = jsonFactory.createParser(line)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Line " + lineNumber + " does not hold a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final int position = positionOf(parser.getCurrentName());
+                final JsonToken value = parser.nextToken();
+                if (position < 0 || value == JsonToken.VALUE_NULL) {
+                    parser.skipChildren();
+                } else if (value.isScalarValue()) {
+                    record[position] = parser.getText();
+                } else {
+                    throw new IOException("Line " + lineNumber + " holds an object or an array for " + parser.getCurrentName());
+                }
+            }
+        }
+        return record;
+    }
+}
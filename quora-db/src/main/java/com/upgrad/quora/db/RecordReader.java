@@ -0,0 +1,73 @@
+package com.upgrad.quora.db;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class reads the records of an input file one at a time, as the values of the columns asked for, in that order.
+ * A column missing from a record is read as null. Files ending in .ndjson or .jsonl hold one JSON object per line,
+ * every other file is read as CSV with a header line naming the columns.
+ */
+public abstract class RecordReader implements Closeable {
+
+    private final BufferedReader reader;
+
+    // The position of every column asked for, by its name.
+    private final Map<String, Integer> positions = new HashMap<>();
+
+    protected final int columnCount;
+
+    protected long lineNumber;
+
+    protected RecordReader(final BufferedReader reader, final String[] columns) {
+        this.reader = reader;
+        for (int i = 0; i < columns.length; i++) {
+            positions.put(columns[i], i);
+        }
+        this.columnCount = columns.length;
+    }
+
+    public static RecordReader open(final Path path, final String[] columns) throws IOException {
+        final BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8);
+        final String name = path.getFileName().toString();
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+            return new JsonLinesRecordReader(reader, columns);
+        }
+        return new CsvRecordReader(reader, columns);
+    }
+
+    /**
+     * @return - the values of the next record, or null once every record has been read
+     */
+    public abstract String[] next() throws IOException;
+
+    // The line the last record was read from, to point to the record in an error message.
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    protected String readLine() throws IOException {
+        final String line = reader.readLine();
+        if (line != null) {
+            lineNumber++;
+        }
+        return line;
+    }
+
+    // Returns the position of the column in the records, or -1 if it was not asked for.
+    protected int positionOf(final String column) {
+        final Integer position = positions.get(column);
+        return position == null ? -1 : position;
+    }
+}
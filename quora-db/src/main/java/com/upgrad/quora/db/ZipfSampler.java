@@ -0,0 +1,68 @@
+package com.upgrad.quora.db;
+
+import java.util.SplittableRandom;
+
+/**
+ * This class draws ranks from 1 to n with the probability of rank k proportional to 1 / k^exponent, in constant time
+ * and memory whatever n is, by the rejection-inversion method of Hormann and Derflinger.
+ * An exponent around 1 gives the long tail seen in real activity: a few ranks get most of the draws.
+ */
+class ZipfSampler {
+
+    private final int n;
+
+    private final double exponent;
+
+    private final double hIntegralX1;
+
+    private final double hIntegralN;
+
+    private final double s;
+
+    ZipfSampler(final int n, final double exponent) {
+        if (n < 1 || exponent <= 0) {
+            throw new IllegalArgumentException("A Zipf distribution needs at least one rank and a positive exponent");
+        }
+        this.n = n;
+        this.exponent = exponent;
+        this.hIntegralX1 = hIntegral(1.5) - 1;
+        this.hIntegralN = hIntegral(n + 0.5);
+        this.s = 2 - hIntegralInverse(hIntegral(2.5) - h(2));
+    }
+
+    int sample(final SplittableRandom random) {
+        while (true) {
+            final double u = hIntegralN + random.nextDouble() * (hIntegralX1 - hIntegralN);
+            final double x = hIntegralInverse(u);
+            final int k = (int) Math.max(1, Math.min(n, (long) (x + 0.5)));
+            if (k - x <= s || u >= hIntegral(k + 0.5) - h(k)) {
+                return k;
+            }
+        }
+    }
+
+    // The integral of h from 1 to x, up to a constant.
+    private double hIntegral(final double x) {
+        final double logX = Math.log(x);
+        return helper2((1 - exponent) * logX) * logX;
+    }
+
+    private double h(final double x) {
+        return Math.exp(-exponent * Math.log(x));
+    }
+
+    private double hIntegralInverse(final double x) {
+        final double t = Math.max(-1, x * (1 - exponent));
+        return Math.exp(helper1(t) * x);
+    }
+
+    // log(1 + x) / x, accurate near 0.
+    private static double helper1(final double x) {
+        return Math.abs(x) > 1e-8 ? Math.log1p(x) / x : 1 - x * (0.5 - x * (1.0 / 3 - x * 0.25));
+    }
+
+    // (exp(x) - 1) / x, accurate near 0.
+    private static double helper2(final double x) {
+        return Math.abs(x) > 1e-8 ? Math.expm1(x) / x : 1 + x * 0.5 * (1 + x * (1.0 / 3) * (1 + x * 0.25));
+    }
+}
@@ -0,0 +1,4 @@
+--USERS keeps which instance of the application is purging a deleted user and when it last renewed its claim, so two
+--instances never purge the same user at once, and the claim of an instance stopped during a purge expires
+ALTER TABLE USERS ADD COLUMN PURGED_BY VARCHAR(36) NULL;
+ALTER TABLE USERS ADD COLUMN PURGE_CLAIMED_AT TIMESTAMP NULL;
@@ -0,0 +1,16 @@
+--Indexes for the columns every lookup filters on, so the lookups do not scan the tables as they grow.
+--The indexes are built concurrently, so a live database keeps accepting writes while this migration runs.
+
+--The uuid of a user, a question and an answer is exposed by the API and identifies exactly one row
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS USERS_UUID_UK ON USERS(uuid);
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS QUESTION_UUID_UK ON QUESTION(uuid);
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS ANSWER_UUID_UK ON ANSWER(uuid);
+
+--Every authenticated request looks up its access token
+CREATE INDEX CONCURRENTLY IF NOT EXISTS USER_AUTH_ACCESS_TOKEN_IDX ON USER_AUTH(ACCESS_TOKEN);
+
+--Foreign key columns, used to list the questions of a user and the answers of a question, and by the cascading deletes
+CREATE INDEX CONCURRENTLY IF NOT EXISTS USER_AUTH_USER_ID_IDX ON USER_AUTH(USER_ID);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS QUESTION_USER_ID_IDX ON QUESTION(user_id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS ANSWER_QUESTION_ID_IDX ON ANSWER(question_id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS ANSWER_USER_ID_IDX ON ANSWER(user_id);
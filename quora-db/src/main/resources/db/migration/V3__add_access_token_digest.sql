@@ -0,0 +1,3 @@
+--USER_AUTH stores the SHA-256 digest of every access token, the tokens are looked up by this 32 byte value
+--The column is filled in for the existing tokens by a background job of the application, so it stays nullable
+ALTER TABLE USER_AUTH ADD COLUMN ACCESS_TOKEN_DIGEST BYTEA NULL;
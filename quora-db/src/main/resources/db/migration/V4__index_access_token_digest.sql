@@ -0,0 +1,6 @@
+--The access tokens are looked up by their digest
+CREATE INDEX CONCURRENTLY IF NOT EXISTS USER_AUTH_ACCESS_TOKEN_DIGEST_IDX ON USER_AUTH(ACCESS_TOKEN_DIGEST);
+
+--Only the tokens which have no digest yet are looked up by their full value, so the wide index shrinks to nothing as they are backfilled
+CREATE INDEX CONCURRENTLY IF NOT EXISTS USER_AUTH_ACCESS_TOKEN_NO_DIGEST_IDX ON USER_AUTH(ACCESS_TOKEN) WHERE ACCESS_TOKEN_DIGEST IS NULL;
+DROP INDEX CONCURRENTLY IF EXISTS USER_AUTH_ACCESS_TOKEN_IDX;
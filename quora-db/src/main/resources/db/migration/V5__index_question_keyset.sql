@@ -0,0 +1,6 @@
+--The questions are paginated newest first on (date, id), so a page is read straight off these indexes
+CREATE INDEX CONCURRENTLY IF NOT EXISTS QUESTION_DATE_ID_IDX ON QUESTION(date DESC, id DESC);
+
+--The questions of a user are paginated the same way, this index also serves the foreign key so the former one is dropped
+CREATE INDEX CONCURRENTLY IF NOT EXISTS QUESTION_USER_ID_DATE_ID_IDX ON QUESTION(user_id, date DESC, id DESC);
+DROP INDEX CONCURRENTLY IF EXISTS QUESTION_USER_ID_IDX;
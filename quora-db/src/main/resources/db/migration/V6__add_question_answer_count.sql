@@ -0,0 +1,5 @@
+--QUESTION keeps the number of its answers, so the question listings can show it without counting the answers
+--The column is added without a value for the existing questions, so the table is not rewritten, they are counted by a
+--background job of the application which also repairs any count that drifts from the answer table
+ALTER TABLE QUESTION ADD COLUMN ANSWER_COUNT INTEGER NULL;
+ALTER TABLE QUESTION ALTER COLUMN ANSWER_COUNT SET DEFAULT 0;
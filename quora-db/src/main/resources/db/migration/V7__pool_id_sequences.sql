@@ -0,0 +1,12 @@
+--The application takes the ids of the new rows 50 at a time from these sequences, instead of letting the database
+--assign them on insert, so that several inserts can be sent to the database as a single batch
+--Each value the application reads is the last id of its block, so the sequences move ahead by 50 and start past the
+--highest id in use. An insert relying on the column default still gets a unique id, the rest of its block is unused
+ALTER SEQUENCE USERS_ID_SEQ INCREMENT BY 50;
+SELECT SETVAL('USERS_ID_SEQ', GREATEST((SELECT MAX(id) FROM USERS), (SELECT last_value FROM USERS_ID_SEQ)));
+ALTER SEQUENCE USER_AUTH_ID_SEQ INCREMENT BY 50;
+SELECT SETVAL('USER_AUTH_ID_SEQ', GREATEST((SELECT MAX(id) FROM USER_AUTH), (SELECT last_value FROM USER_AUTH_ID_SEQ)));
+ALTER SEQUENCE QUESTION_ID_SEQ INCREMENT BY 50;
+SELECT SETVAL('QUESTION_ID_SEQ', GREATEST((SELECT MAX(id) FROM QUESTION), (SELECT last_value FROM QUESTION_ID_SEQ)));
+ALTER SEQUENCE ANSWER_ID_SEQ INCREMENT BY 50;
+SELECT SETVAL('ANSWER_ID_SEQ', GREATEST((SELECT MAX(id) FROM ANSWER), (SELECT last_value FROM ANSWER_ID_SEQ)));
@@ -0,0 +1,3 @@
+--USERS keeps the time a user was deleted, the user is hidden from then on and its questions and answers are purged by a
+--background job of the application, which deletes the row of the user last
+ALTER TABLE USERS ADD COLUMN DELETED_AT TIMESTAMP NULL;
@@ -0,0 +1,2 @@
+--The purge job looks for the deleted users it has yet to purge, which are only ever a handful of rows
+CREATE INDEX CONCURRENTLY IF NOT EXISTS USERS_DELETED_AT_IDX ON USERS(DELETED_AT) WHERE DELETED_AT IS NOT NULL;
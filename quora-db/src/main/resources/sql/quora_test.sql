@@ -11,6 +11,9 @@ INSERT INTO users(id, uuid, firstname, lastname, username, email, password, salt
     VALUES (1028,'database_uuid3','database_firstname3','database_lastname3','database_username3','database_email3','database_password3','database_salt3', 'database_country3' ,'database_aboutme3' ,'database_dob3' , 'nonadmin' , 'database_contactnumber3' );
 INSERT INTO users(id, uuid, firstname, lastname, username, email, password, salt, country, aboutme, dob, role, contactnumber)
     VALUES (1029,'database_uuid4','database_firstname4','database_lastname4','database_username4','database_email4','database_password4','database_salt4', 'database_country4' ,'database_aboutme4' ,'database_dob4' , 'nonadmin' , 'database_contactnumber4' );
+--This user is deleted by the tests, so it is not used by any other test
+INSERT INTO users(id, uuid, firstname, lastname, username, email, password, salt, country, aboutme, dob, role, contactnumber)
+    VALUES (1030,'database_uuid5','database_firstname5','database_lastname5','database_username5','database_email5','database_password5','database_salt5', 'database_country5' ,'database_aboutme5' ,'database_dob5' , 'nonadmin' , 'database_contactnumber5' );
 
 
 --Insert values in USER_AUTH table
@@ -21,8 +24,17 @@ insert into user_auth (id , uuid , user_id , access_token , expires_at , login_a
 
 
 --Insert values in QUESTION table
-insert into question (id,uuid,content,date,user_id) values(1024,'database_question_uuid','database_question_content','2018-09-17 19:41:19.593',1026);
+insert into question (id,uuid,content,date,user_id,answer_count) values(1024,'database_question_uuid','database_question_content','2018-09-17 19:41:19.593',1026,1);
+insert into question (id,uuid,content,date,user_id,answer_count) values(1025,'database_question_uuid5','database_purged_question_content','2018-09-17 19:41:19.593',1030,1);
 
 
 --Insert values in ANSWER table
 insert into answer(id,uuid,ans,date,user_id,question_id) values (1024,'database_answer_uuid','my_answer','2018-09-17 19:41:19.593',1026,1024);
+insert into answer(id,uuid,ans,date,user_id,question_id) values (1025,'database_answer_uuid5','my_purged_answer','2018-09-17 19:41:19.593',1030,1025);
+
+
+--Move the sequences past the ids inserted above, so the ids taken from them do not clash with these rows
+SELECT setval('users_id_seq', (SELECT max(id) FROM users));
+SELECT setval('user_auth_id_seq', (SELECT max(id) FROM user_auth));
+SELECT setval('question_id_seq', (SELECT max(id) FROM question));
+SELECT setval('answer_id_seq', (SELECT max(id) FROM answer));
@@ -0,0 +1,96 @@
+package com.upgrad.quora.db;
+
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ZipfSamplerTest {
+
+    private static final int SAMPLES = 1_000_000;
+
+    //This test case passes when the ranks are drawn for a fixed seed with frequencies proportional to 1 / k at an exponent of 1.
+    @Test
+    public void frequenciesFollowZipfLaw() {
+        assertFrequencies(1000, 1.0);
+    }
+
+    //This test case passes when the ranks are drawn with frequencies proportional to 1 / k^exponent at exponents away from 1.
+    @Test
+    public void frequenciesFollowOtherExponents() {
+        assertFrequencies(1000, 0.5);
+        assertFrequencies(100, 2.0);
+    }
+
+    //This test case passes when every rank drawn is between 1 and n, and a single rank is always drawn.
+    @Test
+    public void ranksStayWithinBounds() {
+        final SplittableRandom random = new SplittableRandom(42);
+        final ZipfSampler sampler = new ZipfSampler(10, 1.2);
+        for (int i = 0; i < SAMPLES; i++) {
+            final int rank = sampler.sample(random);
+            assertTrue("rank " + rank, rank >= 1 && rank <= 10);
+        }
+        final ZipfSampler single = new ZipfSampler(1, 1.0);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(1, single.sample(random));
+        }
+    }
+
+    //This test case passes when the same seed draws the same ranks, so a generated data set can be generated again.
+    @Test
+    public void sameSeedDrawsSameRanks() {
+        final ZipfSampler sampler = new ZipfSampler(1000, 1.0);
+        assertArrayEquals(draw(sampler, new SplittableRandom(7), 1000), draw(sampler, new SplittableRandom(7), 1000));
+    }
+
+    //This test case passes when a distribution without any rank is refused.
+    @Test(expected = IllegalArgumentException.class)
+    public void noRankIsRefused() {
+        new ZipfSampler(0, 1.0);
+    }
+
+    //This test case passes when a distribution with an exponent which is not positive is refused.
+    @Test(expected = IllegalArgumentException.class)
+    public void nonPositiveExponentIsRefused() {
+        new ZipfSampler(10, 0);
+    }
+
+    // The most frequent ranks, and the tail as a whole, are each within four standard deviations of their expected count.
+    private static void assertFrequencies(final int n, final double exponent) {
+        final int[] counts = new int[n + 1];
+        for (final int rank : draw(new ZipfSampler(n, exponent), new SplittableRandom(42), SAMPLES)) {
+            counts[rank]++;
+        }
+        double harmonic = 0;
+        for (int k = 1; k <= n; k++) {
+            harmonic += Math.pow(k, -exponent);
+        }
+        double headProbability = 0;
+        int headCount = 0;
+        for (int k = 1; k <= 10; k++) {
+            final double probability = Math.pow(k, -exponent) / harmonic;
+            assertCount("rank " + k, probability, counts[k]);
+            headProbability += probability;
+            headCount += counts[k];
+        }
+        assertCount("ranks above 10", 1 - headProbability, SAMPLES - headCount);
+    }
+
+    private static void assertCount(final String message, final double probability, final int count) {
+        final double expected = probability * SAMPLES;
+        final double deviation = Math.sqrt(SAMPLES * probability * (1 - probability));
+        assertEquals(message, expected, count, 4 * deviation);
+    }
+
+    private static int[] draw(final ZipfSampler sampler, final SplittableRandom random, final int samples) {
+        final int[] ranks = new int[samples];
+        for (int i = 0; i < samples; i++) {
+            ranks[i] = sampler.sample(random);
+        }
+        return ranks;
+    }
+}
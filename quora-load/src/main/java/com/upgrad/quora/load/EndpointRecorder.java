@@ -0,0 +1,78 @@
+package com.upgrad.quora.load;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class records the latencies of the requests sent to an endpoint, in microseconds.
+ * The response time is measured from when the request was due to be sent, so a request held back by a slow one before
+ * it counts the wait as well; that is the latency corrected for coordinated omission. The service time is measured from
+ * when the request was actually sent, as a client which waits for every response would measure it.
+ */
+class EndpointRecorder {
+
+    // Responses slower than this are recorded as this.
+    private static final long HIGHEST_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final String endpoint;
+
+    private final Recorder responseTimes = new Recorder(HIGHEST_MICROS, 3);
+
+    private final Recorder serviceTimes = new Recorder(HIGHEST_MICROS, 3);
+
+    private final LongAdder errors = new LongAdder();
+
+    EndpointRecorder(final String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    void record(final long intendedNanos, final long startNanos, final long endNanos, final boolean error) {
+        responseTimes.recordValue(Math.min(HIGHEST_MICROS, TimeUnit.NANOSECONDS.toMicros(endNanos - intendedNanos)));
+        serviceTimes.recordValue(Math.min(HIGHEST_MICROS, TimeUnit.NANOSECONDS.toMicros(endNanos - startNanos)));
+        if (error) {
+            errors.increment();
+        }
+    }
+
+    String getEndpoint() {
+        return endpoint;
+    }
+
+    // The histograms and the errors since the last call, so that every stage of the test is reported on its own.
+    Interval nextInterval() {
+        return new Interval(responseTimes.getIntervalHistogram(), serviceTimes.getIntervalHistogram(), errors.sumThenReset());
+    }
+
+    /**
+     * This class holds what was recorded for an endpoint during a stage.
+     */
+    static class Interval {
+
+        private final Histogram responseTimes;
+
+        private final Histogram serviceTimes;
+
+        private final long errors;
+
+        Interval(final Histogram responseTimes, final Histogram serviceTimes, final long errors) {
+            this.responseTimes = responseTimes;
+            this.serviceTimes = serviceTimes;
+            this.errors = errors;
+        }
+
+        Histogram getResponseTimes() {
+            return responseTimes;
+        }
+
+        Histogram getServiceTimes() {
+            return serviceTimes;
+        }
+
+        long getErrors() {
+            return errors;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.upgrad.quora.load;
+
+import com.upgrad.quora.api.QuoraApiApplication;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class runs the load test: it boots QuoraApiApplication on a free port against the database configured in its
+ * application.yaml, and sends it the scenario of {@link VirtualUser} over HTTP from more and more users.
+ * <p>
+ * The users are doubled at every stage, until the throughput grows by less than the saturation gain or the most users
+ * are reached. The latencies of every endpoint are reported for every stage, and written as .hgrm percentile
+ * distributions to the report directory, which HdrHistogram's plotter reads. The throughput of the busiest stage is
+ * reported as the throughput at saturation.
+ * <p>
+ * The settings are given as --load.&lt;name&gt;=&lt;value&gt;, every other argument is passed on to the application, which
+ * needs a JWT signing key such as --quora.auth.jwt.active-key-id=load --quora.auth.jwt.keys.load=&lt;key&gt; to start:
+ * <ul>
+ * <li>target: the URL of an application already running, for example http://localhost:8080/api, which is then not booted</li>
+ * <li>initial-users, max-users: the users of the first stage and the most users of any stage, 4 and 256</li>
+ * <li>stage-seconds, warmup-seconds: the length of a stage and of the warmup before the first, 30 and 10</li>
+ * <li>pacing-millis: the interval at which every user sends its requests, 100</li>
+ * <li>timeout-millis: the longest wait to connect or for a response, recorded as an error, the length of a stage by default</li>
+ * <li>saturation-gain: the growth of the throughput below which the application counts as saturated, 0.05</li>
+ * <li>report-dir: the directory of the report, target/load-report</li>
+ * </ul>
+ */
+public class LoadTestMain {
+
+    private static final String SETTING_PREFIX = "--load.";
+
+    // The percentiles of the latencies reported for every endpoint.
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    public static void main(final String[] args) throws Exception {
+        final Map<String, String> settings = new LinkedHashMap<>();
+        final List<String> applicationArgs = new ArrayList<>();
+        for (final String arg : args) {
+            if (arg.startsWith(SETTING_PREFIX) && arg.contains("=")) {
+                settings.put(arg.substring(SETTING_PREFIX.length(), arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            } else {
+                applicationArgs.add(arg);
+            }
+        }
+        final int initialUsers = Integer.parseInt(settings.getOrDefault("initial-users", "4"));
+        final int maxUsers = Integer.parseInt(settings.getOrDefault("max-users", "256"));
+        final long stageSeconds = Long.parseLong(settings.getOrDefault("stage-seconds", "30"));
+        final long warmupSeconds = Long.parseLong(settings.getOrDefault("warmup-seconds", "10"));
+        final long pacingNanos = TimeUnit.MILLISECONDS.toNanos(Long.parseLong(settings.getOrDefault("pacing-millis", "100")));
+        final int timeoutMillis = Integer.parseInt(settings.getOrDefault("timeout-millis", String.valueOf(TimeUnit.SECONDS.toMillis(stageSeconds))));
+        final double saturationGain = Double.parseDouble(settings.getOrDefault("saturation-gain", "0.05"));
+        final File reportDir = new File(settings.getOrDefault("report-dir", "target/load-report"));
+        Files.createDirectories(reportDir.toPath());
+
+        ConfigurableApplicationContext context = null;
+        String target = settings.get("target");
+        if (target == null) {
+            applicationArgs.add("--server.port=0");
+            context = SpringApplication.run(QuoraApiApplication.class, applicationArgs.toArray(new String[0]));
+            final Environment environment = context.getEnvironment();
+            target = "http://localhost:" + environment.getProperty("local.server.port") + environment.getProperty("server.servlet.context-path", "");
+        }
+        System.setProperty("http.maxConnections", String.valueOf(maxUsers));
+
+        final Map<String, EndpointRecorder> recorders = new LinkedHashMap<>();
+        for (final String endpoint : new String[]{VirtualUser.SIGNUP, VirtualUser.SIGNIN, VirtualUser.CREATE_QUESTION,
+                VirtualUser.CREATE_ANSWER, VirtualUser.LIST_QUESTIONS, VirtualUser.SIGNOUT}) {
+            recorders.put(endpoint, new EndpointRecorder(endpoint));
+        }
+        final QuoraClient client = new QuoraClient(target, timeoutMillis);
+
+        try (PrintStream summary = new PrintStream(new FileOutputStream(new File(reportDir, "summary.txt")), true, StandardCharsets.UTF_8.name())) {
+            runStage(client, recorders, initialUsers, pacingNanos, warmupSeconds);
+            double bestThroughput = 0;
+            int bestUsers = 0;
+            double previousThroughput = 0;
+            for (int users = initialUsers; users <= maxUsers; users *= 2) {
+                final Map<String, EndpointRecorder.Interval> intervals = runStage(client, recorders, users, pacingNanos, stageSeconds);
+                final double throughput = report(summary, reportDir, users, stageSeconds, intervals);
+                if (throughput > bestThroughput) {
+                    bestThroughput = throughput;
+                    bestUsers = users;
+                }
+                if (throughput < previousThroughput * (1 + saturationGain)) {
+                    break;
+                }
+                previousThroughput = throughput;
+            }
+            print(summary, String.format("Throughput at saturation: %.1f requests/s with %d users", bestThroughput, bestUsers));
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    // Runs the users for a stage, and returns what was recorded for every endpoint during the stage.
+    private static Map<String, EndpointRecorder.Interval> runStage(final QuoraClient client, final Map<String, EndpointRecorder> recorders,
+                                                                   final int users, final long pacingNanos, final long seconds) throws InterruptedException {
+        recorders.values().forEach(EndpointRecorder::nextInterval);
+        final List<VirtualUser> virtualUsers = new ArrayList<>();
+        final List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < users; i++) {
+            final VirtualUser virtualUser = new VirtualUser(client, recorders, pacingNanos);
+            final Thread thread = new Thread(virtualUser, "virtual-user-" + i);
+            thread.setDaemon(true);
+            virtualUsers.add(virtualUser);
+            threads.add(thread);
+            thread.start();
+        }
+        TimeUnit.SECONDS.sleep(seconds);
+        final Map<String, EndpointRecorder.Interval> intervals = new LinkedHashMap<>();
+        recorders.forEach((endpoint, recorder) -> intervals.put(endpoint, recorder.nextInterval()));
+        virtualUsers.forEach(VirtualUser::stop);
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        return intervals;
+    }
+
+    // Reports a stage and returns its throughput, in requests per second.
+    private static double report(final PrintStream summary, final File reportDir, final int users, final long seconds,
+                                 final Map<String, EndpointRecorder.Interval> intervals) throws IOException {
+        long requests = 0;
+        for (final EndpointRecorder.Interval interval : intervals.values()) {
+            requests += interval.getResponseTimes().getTotalCount();
+        }
+        final double throughput = (double) requests / seconds;
+        print(summary, String.format("%n%d users: %.1f requests/s, latencies in ms from when each request was due (service time in brackets)", users, throughput));
+        final StringBuilder header = new StringBuilder(String.format("%-16s %8s %7s", "endpoint", "requests", "errors"));
+        for (final double percentile : PERCENTILES) {
+            header.append(String.format(" %17s", "p" + percentile));
+        }
+        print(summary, header.append(String.format(" %9s", "max")).toString());
+        for (final Map.Entry<String, EndpointRecorder.Interval> entry : intervals.entrySet()) {
+            final Histogram responseTimes = entry.getValue().getResponseTimes();
+            final Histogram serviceTimes = entry.getValue().getServiceTimes();
+            final StringBuilder line = new StringBuilder(String.format("%-16s %8d %7d", entry.getKey(), responseTimes.getTotalCount(), entry.getValue().getErrors()));
+            for (final double percentile : PERCENTILES) {
+                line.append(String.format(" %8.1f (%6.1f)", millis(responseTimes.getValueAtPercentile(percentile)), millis(serviceTimes.getValueAtPercentile(percentile))));
+            }
+            print(summary, line.append(String.format(" %9.1f", millis(responseTimes.getMaxValue()))).toString());
+            final String name = entry.getKey().replace('/', '-') + "-" + users + "-users";
+            try (PrintStream out = new PrintStream(new FileOutputStream(new File(reportDir, name + ".hgrm")), false, StandardCharsets.UTF_8.name())) {
+                responseTimes.outputPercentileDistribution(out, 1000.0);
+            }
+            try (PrintStream out = new PrintStream(new FileOutputStream(new File(reportDir, name + "-service.hgrm")), false, StandardCharsets.UTF_8.name())) {
+                serviceTimes.outputPercentileDistribution(out, 1000.0);
+            }
+        }
+        return throughput;
+    }
+
+    private static double millis(final long micros) {
+        return micros / 1000.0;
+    }
+
+    private static void print(final PrintStream summary, final String line) {
+        System.out.println(line);
+        summary.println(line);
+    }
+}
@@ -0,0 +1,103 @@
+package com.upgrad.quora.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This class sends the requests of the scenario to the application over HTTP, each on a connection kept alive by the
+ * JDK for the next request of the same thread.
+ * A request which cannot connect, or waits for its response, longer than the timeout fails with a SocketTimeoutException,
+ * so a hung response never holds a virtual user past the end of its stage.
+ */
+class QuoraClient {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final String baseUrl;
+
+    private final int timeoutMillis;
+
+    QuoraClient(final String baseUrl, final int timeoutMillis) {
+        this.baseUrl = baseUrl;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    Response post(final String path, final String authorization) throws IOException {
+        return send("POST", path, authorization);
+    }
+
+    Response get(final String path, final String authorization) throws IOException {
+        return send("GET", path, authorization);
+    }
+
+    static String encode(final String value) {
+        try {
+            return URLEncoder.encode(value, StandardCharsets.UTF_8.name());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Response send(final String method, final String path, final String authorization) throws IOException {
+        final HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        connection.setConnectTimeout(timeoutMillis);
+        connection.setReadTimeout(timeoutMillis);
+        connection.setRequestMethod(method);
+        connection.setRequestProperty("Content-Type", "application/json;charset=UTF-8");
+        if (authorization != null) {
+            connection.setRequestProperty("authorization", authorization);
+        }
+        final int status = connection.getResponseCode();
+        final InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        if (in != null) {
+            try (InputStream stream = in) {
+                final byte[] buffer = new byte[8192];
+                for (int read; (read = stream.read(buffer)) >= 0; ) {
+                    body.write(buffer, 0, read);
+                }
+            }
+        }
+        return new Response(status, connection.getHeaderField("access_token"), body.toByteArray());
+    }
+
+    /**
+     * This class holds the status, the access token header and the body of a response.
+     */
+    static class Response {
+
+        private final int status;
+
+        private final String accessToken;
+
+        private final byte[] body;
+
+        Response(final int status, final String accessToken, final byte[] body) {
+            this.status = status;
+            this.accessToken = accessToken;
+            this.body = body;
+        }
+
+        int getStatus() {
+            return status;
+        }
+
+        String getAccessToken() {
+            return accessToken;
+        }
+
+        // The id field of the JSON body, which the create endpoints answer with.
+        String getId() throws IOException {
+            final JsonNode id = OBJECT_MAPPER.readTree(body).get("id");
+            return id == null ? null : id.asText();
+        }
+    }
+}
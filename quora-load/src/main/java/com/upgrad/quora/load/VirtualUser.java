@@ -0,0 +1,121 @@
+package com.upgrad.quora.load;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This class is a user of the application, going through the scenario again and again until it is stopped:
+ * signup, signin, create a question, answer it, list the questions and signout, as a new user every time.
+ * <p>
+ * The requests are due at a fixed pace, one every pacing interval. A request which is due while the previous one is
+ * still waiting for its response is sent as soon as that response arrives, and its latency is counted from when it
+ * was due, see {@link EndpointRecorder}.
+ */
+class VirtualUser implements Runnable {
+
+    static final String SIGNUP = "signup";
+    static final String SIGNIN = "signin";
+    static final String CREATE_QUESTION = "question/create";
+    static final String CREATE_ANSWER = "answer/create";
+    static final String LIST_QUESTIONS = "question/all";
+    static final String SIGNOUT = "signout";
+
+    private static final String[] WORDS = {"how", "what", "why", "database", "index", "query", "java", "spring", "token",
+            "cache", "latency", "replica", "schema", "thread", "pool", "json", "load", "test", "scale", "plan"};
+
+    private final QuoraClient client;
+
+    private final Map<String, EndpointRecorder> recorders;
+
+    private final long pacingNanos;
+
+    private volatile boolean stopped;
+
+    private long nextNanos;
+
+    VirtualUser(final QuoraClient client, final Map<String, EndpointRecorder> recorders, final long pacingNanos) {
+        this.client = client;
+        this.recorders = recorders;
+        this.pacingNanos = pacingNanos;
+    }
+
+    void stop() {
+        stopped = true;
+    }
+
+    // The users of a stage start spread over one pacing interval, so they do not all send their requests at once.
+    @Override
+    public void run() {
+        nextNanos = System.nanoTime() + ThreadLocalRandom.current().nextLong(pacingNanos);
+        while (!stopped) {
+            runScenario();
+        }
+    }
+
+    private void runScenario() {
+        final String username = "load_" + UUID.randomUUID().toString().replace("-", "");
+        final String password = "load_password";
+        final QuoraClient.Response signup = send(SIGNUP, () -> client.post("/user/signup?firstName=load&lastName=user&userName=" + username
+                + "&emailAddress=" + username + "@quora.io&password=" + password + "&country=india&aboutMe=load&dob=01-01-1990&contactNumber=9000000000", null));
+        if (failed(signup)) {
+            return;
+        }
+        final String basic = "Basic " + Base64.getEncoder().encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8));
+        final QuoraClient.Response signin = send(SIGNIN, () -> client.post("/user/signin", basic));
+        if (failed(signin) || signin.getAccessToken() == null) {
+            return;
+        }
+        final String bearer = "Bearer " + signin.getAccessToken();
+        final QuoraClient.Response question = send(CREATE_QUESTION, () -> client.post("/question/create?content=" + QuoraClient.encode(sentence(username)), bearer));
+        if (!failed(question)) {
+            send(CREATE_ANSWER, () -> client.post("/question/" + question.getId() + "/answer/create?answer=" + QuoraClient.encode(sentence(username)), bearer));
+        }
+        send(LIST_QUESTIONS, () -> client.get("/question/all", bearer));
+        send(SIGNOUT, () -> client.post("/user/signout", bearer));
+    }
+
+    // Returns null when the request failed without a response, which is recorded as an error, or the user was stopped.
+    // A request which timed out failed without a response.
+    private QuoraClient.Response send(final String endpoint, final Request request) {
+        final long intendedNanos = nextNanos;
+        nextNanos += pacingNanos;
+        for (long wait; (wait = intendedNanos - System.nanoTime()) > 0 && !stopped; ) {
+            LockSupport.parkNanos(wait);
+        }
+        if (stopped) {
+            return null;
+        }
+        final long startNanos = System.nanoTime();
+        QuoraClient.Response response;
+        try {
+            response = request.send();
+        } catch (IOException e) {
+            response = null;
+        }
+        recorders.get(endpoint).record(intendedNanos, startNanos, System.nanoTime(), response == null || response.getStatus() >= 400);
+        return response;
+    }
+
+    private static boolean failed(final QuoraClient.Response response) {
+        return response == null || response.getStatus() >= 400;
+    }
+
+    // A question or answer of random words, made unique by the username so it is never taken for a duplicate.
+    private static String sentence(final String username) {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < 10; i++) {
+            sentence.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+        }
+        return sentence.append(username).append('?').toString();
+    }
+
+    private interface Request {
+        QuoraClient.Response send() throws IOException;
+    }
+}
@@ -0,0 +1,37 @@
+package com.upgrad.quora.service;
+
+import com.upgrad.quora.service.common.ObservedDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+/**
+ * This Configuration wraps the data source in an {@link ObservedDataSource}, which counts the statements of every
+ * request and logs the slow and the N+1 ones. It is applied unless quora.queries.observe is false.
+ * <p>
+ * Hibernate only keeps its statistics for the whole session factory and without the bind parameters, so the statements
+ * are observed on their way to the driver instead.
+ */
+@Configuration
+@ConditionalOnProperty(value = "quora.queries.observe", matchIfMissing = true)
+public class QueryObservationConfiguration {
+
+    // The post processor is created before the configuration is, so it reads its settings from the environment itself.
+    @Bean
+    public static BeanPostProcessor observedDataSourcePostProcessor(final Environment environment) {
+        final long slowQueryMillis = environment.getProperty("quora.queries.slow-query-millis", Long.class, 200L);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(final Object bean, final String beanName) {
+                if (bean instanceof DataSource && !(bean instanceof ObservedDataSource)) {
+                    return new ObservedDataSource((DataSource) bean, slowQueryMillis);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,177 @@
+package com.upgrad.quora.service;
+
+import com.upgrad.quora.service.common.CacheInvalidation;
+import com.upgrad.quora.service.common.PoolMetrics;
+import com.upgrad.quora.service.common.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This Configuration sends the read-only transactions to the read replicas listed under quora.datasource.replicas, and
+ * the rest to the primary configured under spring.datasource. It is only applied when at least one replica is listed,
+ * otherwise the data source auto-configured by Spring Boot is used as it is.
+ * The pools are not beans, so their metrics are bound here, tagged with the pool names primary and replica-0 onwards.
+ */
+@Configuration
+@ConditionalOnProperty("quora.datasource.replicas[0].url")
+@ConfigurationProperties(prefix = "quora.datasource")
+public class ReplicaDataSourceConfiguration implements MeterBinder {
+
+    private List<Replica> replicas = new ArrayList<>();
+
+    // A replica lagging further behind the primary gets no reads until it catches up.
+    private long maxLagMillis = 5000;
+
+    // How long the reads of a user go to the primary after the user committed a write.
+    private long readYourWritesMillis = 10000;
+
+    private HikariDataSource primaryDataSource;
+
+    private ReplicaRoutingDataSource routingDataSource;
+
+    private final List<HikariDataSource> pools = new ArrayList<>();
+
+    /*
+     * The pool of the primary is built here rather than declared as a bean of its own, as Spring Boot would otherwise
+     * initialize it through the routing data source which depends on it.
+     * The replicas are opened with the credentials of the primary unless they are given their own.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(final DataSourceProperties properties) {
+        primaryDataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primaryDataSource.setPoolName("primary");
+        pools.add(primaryDataSource);
+        final List<HikariDataSource> replicaDataSources = new ArrayList<>();
+        for (int i = 0; i < replicas.size(); i++) {
+            final Replica replica = replicas.get(i);
+            final HikariDataSource replicaDataSource = new HikariDataSource();
+            replicaDataSource.setPoolName("replica-" + i);
+            replicaDataSource.setDriverClassName(properties.determineDriverClassName());
+            replicaDataSource.setJdbcUrl(replica.getUrl());
+            replicaDataSource.setUsername(replica.getUsername() == null ? properties.determineUsername() : replica.getUsername());
+            replicaDataSource.setPassword(replica.getPassword() == null ? properties.determinePassword() : replica.getPassword());
+            replicaDataSource.setMaximumPoolSize(replica.getMaximumPoolSize());
+            replicaDataSource.setConnectionTimeout(replica.getConnectionTimeoutMillis());
+            replicaDataSource.setReadOnly(true);
+            replicaDataSources.add(replicaDataSource);
+            pools.add(replicaDataSource);
+        }
+        routingDataSource = new ReplicaRoutingDataSource(primaryDataSource, replicaDataSources, maxLagMillis, readYourWritesMillis);
+        routingDataSource.checkReplicas();
+        CacheInvalidation.setReplicaDelay(readYourWritesMillis);
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    // The registry is built after the data source, as it needs the DAOs, so the pools are all open by now.
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        pools.forEach(pool -> PoolMetrics.monitor(registry, pool));
+    }
+
+    @Scheduled(fixedDelayString = "${quora.datasource.replica-check-interval-millis:5000}")
+    public void checkReplicas() {
+        routingDataSource.checkReplicas();
+    }
+
+    @PreDestroy
+    public void close() {
+        routingDataSource.close();
+        primaryDataSource.close();
+    }
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    public void setReplicas(List<Replica> replicas) {
+        this.replicas = replicas;
+    }
+
+    public long getMaxLagMillis() {
+        return maxLagMillis;
+    }
+
+    public void setMaxLagMillis(long maxLagMillis) {
+        this.maxLagMillis = maxLagMillis;
+    }
+
+    public long getReadYourWritesMillis() {
+        return readYourWritesMillis;
+    }
+
+    public void setReadYourWritesMillis(long readYourWritesMillis) {
+        this.readYourWritesMillis = readYourWritesMillis;
+    }
+
+    /**
+     * This class holds the connection settings of a replica.
+     */
+    public static class Replica {
+
+        private String url;
+
+        private String username;
+
+        private String password;
+
+        private int maximumPoolSize = 10;
+
+        // A replica which does not hand out a connection in time is skipped until its next health check.
+        private long connectionTimeoutMillis = 2000;
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public void setPassword(String password) {
+            this.password = password;
+        }
+
+        public int getMaximumPoolSize() {
+            return maximumPoolSize;
+        }
+
+        public void setMaximumPoolSize(int maximumPoolSize) {
+            this.maximumPoolSize = maximumPoolSize;
+        }
+
+        public long getConnectionTimeoutMillis() {
+            return connectionTimeoutMillis;
+        }
+
+        public void setConnectionTimeoutMillis(long connectionTimeoutMillis) {
+            this.connectionTimeoutMillis = connectionTimeoutMillis;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.upgrad.quora.service.business;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * This class keeps the JWT access tokens that were revoked before their expiry, so that the stateless verification
+ * can reject them without looking them up in the user_auth table.
+ * A token is revoked when the user signs out, and all the tokens of a user are revoked when the user is deleted.
+ * An entry is only kept until the revoked token would have expired anyway, so the list stays small.
+ * The list is held in memory, so every instance of the application only knows about the signouts it handled itself.
+ */
+@Component
+public class AccessTokenRevocationList {
+
+    // Key is the JWT id of the revoked token, value is the expiry time of the token in epoch millis.
+    private final ConcurrentMap<String, Long> revokedTokens = new ConcurrentHashMap<>();
+
+    // Key is the uuid of the deleted user, value is the time of the deletion in epoch millis.
+    private final ConcurrentMap<String, Long> revokedUsers = new ConcurrentHashMap<>();
+
+    private final long maximumTokenLifetimeMillis = JwtTokenProvider.TOKEN_LIFETIME.toMillis();
+
+    public void revokeToken(final String tokenId, final long expiresAtMillis) {
+        revokedTokens.put(tokenId, expiresAtMillis);
+    }
+
+    public void revokeUser(final String userUuid, final long revokedAtMillis) {
+        revokedUsers.merge(userUuid, revokedAtMillis, Math::max);
+    }
+
+    public boolean isTokenRevoked(final String tokenId) {
+        return tokenId != null && revokedTokens.containsKey(tokenId);
+    }
+
+    // The tokens of a deleted user are rejected if they were issued before the user was deleted.
+    public boolean isUserRevoked(final String userUuid, final long issuedAtMillis) {
+        final Long revokedAt = revokedUsers.get(userUuid);
+        return revokedAt != null && issuedAtMillis <= revokedAt;
+    }
+
+    // This method removes the entries of the tokens which have expired, as they are rejected by the verification anyway.
+    @Scheduled(fixedDelayString = "${quora.auth.revocation-purge-interval-millis:60000}")
+    public void purgeExpired() {
+        final long now = System.currentTimeMillis();
+        revokedTokens.values().removeIf(expiresAt -> expiresAt < now);
+        revokedUsers.values().removeIf(revokedAt -> revokedAt + maximumTokenLifetimeMillis < now);
+    }
+}
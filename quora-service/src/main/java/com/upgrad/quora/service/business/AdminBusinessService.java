@@ -1,10 +1,9 @@
 package com.upgrad.quora.service.business;
 
 import com.upgrad.quora.service.dao.UserDao;
-import com.upgrad.quora.service.entity.UserAuthTokenEntity;
+import com.upgrad.quora.service.dto.UserDeletion;
 import com.upgrad.quora.service.entity.UserEntity;
 import com.upgrad.quora.service.exception.AuthorizationFailedException;
-import com.upgrad.quora.service.exception.SignOutRestrictedException;
 import com.upgrad.quora.service.exception.UserNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -12,38 +11,49 @@ import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.ZonedDateTime;
+import java.util.Collections;
 
 @Service
 public class AdminBusinessService {
     @Autowired
     private UserDao userDao;
+    @Autowired
+    private UserAuthTokenProvider userAuthTokenProvider;
+    @Autowired
+    private UserPurge userPurge;
+    @Autowired
+    private ResourceVersions resourceVersions;
 
-    // This method fetches the details of the user's authorization token provided for the current active session.
-    public UserAuthTokenEntity getUserAuthToken(final String authorizationToken) throws AuthorizationFailedException {
-        UserAuthTokenEntity userAuthTokenEntity = userDao.getUserAuthToken(authorizationToken);
-        if (userAuthTokenEntity == null) {
-            throw new AuthorizationFailedException("ATHR-001", "User has not signed in");
-        }
-        if (userAuthTokenEntity.getLogoutAt() != null) {
-            throw new AuthorizationFailedException("ATHR-002", "User is signed out");
-        }
-        UserEntity userEntity = userDao.getUser(userAuthTokenEntity.getUuid());
-        if (userEntity.getRole().equals("nonadmin")) {
-            throw new AuthorizationFailedException("ATHR-003", "Unauthorized Access, Entered user is not an admin");
-
-        }
-
-        return userAuthTokenEntity;
-    }
-
-    // This method fetches the details of the user by searching for user ID.
+    // This method deletes the user with the given user ID, on behalf of the logged in user who must be an admin.
+    // The user is marked deleted, which hides it and rejects its access tokens at once, and its questions and answers
+    // are purged in the background once this transaction commits.
     @Transactional(propagation = Propagation.REQUIRED)
-    public UserEntity getUser(final String userId) throws UserNotFoundException {
+    public UserEntity deleteUser(final String userId, final UserEntity loggedInUser) throws AuthorizationFailedException, UserNotFoundException {
+        checkAdmin(loggedInUser);
         UserEntity userEntity = userDao.getUser(userId);
         if (userEntity == null) {
             throw new UserNotFoundException("USR-001", "User with entered uuid to be deleted does not exist");
         }
-        userDao.deleteUser(userEntity);
+        userDao.markUserDeleted(userEntity, ZonedDateTime.now());
+        resourceVersions.userDeleted(userEntity.getUuid(), Collections.emptyList(), Collections.emptyList());
+        userAuthTokenProvider.invalidateUser(userEntity.getUuid());
+        userPurge.userDeleted(userEntity);
         return userEntity;
     }
+
+    // This method returns the progress of the purge of a deleted user, on behalf of the logged in user who must be an admin.
+    public UserDeletion getUserDeletion(final String userId, final UserEntity loggedInUser) throws AuthorizationFailedException, UserNotFoundException {
+        checkAdmin(loggedInUser);
+        UserDeletion userDeletion = userPurge.getDeletion(userId);
+        if (userDeletion == null) {
+            throw new UserNotFoundException("USR-002", "User with entered uuid has not been deleted");
+        }
+        return userDeletion;
+    }
+
+    private void checkAdmin(final UserEntity loggedInUser) throws AuthorizationFailedException {
+        if (loggedInUser.getRole().equals("nonadmin")) {
+            throw new AuthorizationFailedException("ATHR-003", "Unauthorized Access, Entered user is not an admin");
+        }
+    }
 }
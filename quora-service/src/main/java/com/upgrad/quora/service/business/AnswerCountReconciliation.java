@@ -0,0 +1,47 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.service.dao.UserDao;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * This class repairs the answer counts kept on the questions, so that they match the number of answers in the database.
+ * It counts the answers of the questions stored before the count was kept, and repairs any count which has drifted,
+ * e.g. because answers were deleted outside of the application.
+ * The questions are processed in ranges of ids, each in its own transaction, so only a few of them are locked at a time.
+ */
+@Component
+public class AnswerCountReconciliation {
+
+    @Autowired
+    private UserDao userDao;
+
+    @Value("${quora.answer-count.reconciliation.batch-size:1000}")
+    private int batchSize;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public AnswerCountReconciliation(final PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * @return - the number of questions whose answer count was repaired
+     */
+    @Scheduled(initialDelayString = "${quora.answer-count.reconciliation.initial-delay-millis:10000}",
+            fixedDelayString = "${quora.answer-count.reconciliation.interval-millis:3600000}")
+    public int reconcile() {
+        final Integer maxId = userDao.getMaxQuestionId();
+        int repaired = 0;
+        for (int firstId = 1; maxId != null && firstId <= maxId; firstId += batchSize) {
+            final int lastId = firstId + batchSize - 1;
+            final int fromId = firstId;
+            repaired += transactionTemplate.execute(status -> userDao.reconcileAnswerCounts(fromId, lastId));
+        }
+        return repaired;
+    }
+}
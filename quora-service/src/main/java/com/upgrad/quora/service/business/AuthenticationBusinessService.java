@@ -0,0 +1,30 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.service.entity.UserAuthTokenEntity;
+import com.upgrad.quora.service.exception.AuthorizationFailedException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+@Service
+public class AuthenticationBusinessService {
+    @Autowired
+    private UserAuthTokenProvider userAuthTokenProvider;
+
+    /*
+     * This method authenticates the access token sent with a request.
+     * The token is fetched together with the user it was issued to, so the caller never needs to look the user up again.
+     * The following checks are made :
+     * 1) The access token was issued to a user, or in other words, the user has signed in.
+     * 2) The user has not signed out of the session the token belongs to.
+     */
+    public UserAuthTokenEntity authenticate(final String accessToken, final String signedOutMessage) throws AuthorizationFailedException {
+        UserAuthTokenEntity userAuthTokenEntity = userAuthTokenProvider.getUserAuthToken(accessToken);
+        if (userAuthTokenEntity == null) {
+            throw new AuthorizationFailedException("ATHR-001", "User has not signed in");
+        }
+        if (userAuthTokenEntity.getLogoutAt() != null) {
+            throw new AuthorizationFailedException("ATHR-002", signedOutMessage);
+        }
+        return userAuthTokenEntity;
+    }
+}
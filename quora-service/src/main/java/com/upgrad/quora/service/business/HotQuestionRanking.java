@@ -0,0 +1,237 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.service.common.AfterCommit;
+import com.upgrad.quora.service.common.GenericErrorCode;
+import com.upgrad.quora.service.common.UnexpectedException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class ranks the questions by their recent answers, every answer counting less as it gets older, so that a
+ * question stays hot only as long as it keeps being answered.
+ * The weight of an answer halves every half-life. Instead of decaying every score as time passes, every answer is
+ * weighted by how late it was posted, exp(time / tau), and the score of a question is the sum of the weights of its
+ * answers. All the scores are then ranked as if they were decayed to the same moment, and never need to be updated.
+ * The scores are kept as logarithms, so that they do not overflow however long the application runs.
+ * <p>
+ * A score is updated with a compare-and-set, and the questions are kept ordered by score in a concurrent skip list, so
+ * posting an answer never takes a lock shared with other questions. The questions with the lowest scores are dropped
+ * regularly to bound the memory used. The ranking is written to a snapshot file at the same time and when the
+ * application stops, and is read back from it when the application starts.
+ * It is held in memory, so every instance of the application only ranks the answers posted to it.
+ */
+@Component
+public class HotQuestionRanking {
+
+    private static final int SNAPSHOT_MAGIC = 0x51484F54;
+
+    private static final int SNAPSHOT_VERSION = 1;
+
+    private final double tauMillis;
+
+    @Value("${quora.hot-questions.capacity:10000}")
+    private int capacity;
+
+    // A blank path keeps the ranking in memory only.
+    @Value("${quora.hot-questions.snapshot-file:}")
+    private String snapshotFile;
+
+    // The logarithm of the score of every ranked question, as the bits of a double.
+    private final ConcurrentHashMap<Integer, AtomicLong> scores = new ConcurrentHashMap<>();
+
+    // The ranked questions, best first. A question may briefly appear with an outdated score, which is then skipped.
+    private final ConcurrentSkipListSet<Ranked> ranking = new ConcurrentSkipListSet<>();
+
+    public HotQuestionRanking(@Value("${quora.hot-questions.half-life-minutes:360}") final long halfLifeMinutes) {
+        this.tauMillis = halfLifeMinutes * 60_000 / Math.log(2);
+    }
+
+    // The answer is ranked only once it is committed.
+    public void answerCreated(final int questionId) {
+        answerCreated(questionId, System.currentTimeMillis());
+    }
+
+    // The time of the answer is given by the tests, to rank answers of the past.
+    void answerCreated(final int questionId, final long timeMillis) {
+        AfterCommit.run(() -> addWeight(questionId, timeMillis / tauMillis));
+    }
+
+    public void questionsDeleted(final Collection<Integer> questionIds) {
+        AfterCommit.run(() -> questionIds.forEach(this::remove));
+    }
+
+    /**
+     * @param limit - maximum number of questions to return
+     * @return - the ids of the hottest questions with their scores, hottest first
+     */
+    public Map<Integer, Double> getHotQuestions(final int limit) {
+        return getHotQuestions(limit, System.currentTimeMillis());
+    }
+
+    // The scores are decayed to the time given, by the tests to look at the ranking later on.
+    Map<Integer, Double> getHotQuestions(final int limit, final long nowMillis) {
+        final double now = nowMillis / tauMillis;
+        final Map<Integer, Double> hotQuestions = new LinkedHashMap<>();
+        for (final Ranked ranked : ranking) {
+            if (hotQuestions.size() == limit) {
+                break;
+            }
+            if (isCurrent(ranked)) {
+                hotQuestions.put(ranked.id, Math.exp(ranked.logScore - now));
+            } else if (!scores.containsKey(ranked.id)) {
+                // Left behind by an answer ranked while its question was being deleted or dropped.
+                ranking.remove(ranked);
+            }
+        }
+        return hotQuestions;
+    }
+
+    @PostConstruct
+    public void readSnapshot() {
+        if (snapshotFile.isEmpty() || !Files.exists(Paths.get(snapshotFile))) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(Paths.get(snapshotFile))))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                return;
+            }
+            final int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                addWeight(in.readInt(), in.readDouble());
+            }
+        } catch (IOException e) {
+            // A snapshot which cannot be read only costs the ranking built before the restart.
+            scores.clear();
+            ranking.clear();
+        }
+    }
+
+    /*
+     * This method drops the questions with the lowest scores beyond the capacity, and writes the ranking to the
+     * snapshot file. The file is written next to the previous one and then moved over it, so a crash while writing
+     * never leaves a partial snapshot behind.
+     */
+    @Scheduled(fixedDelayString = "${quora.hot-questions.snapshot-interval-millis:60000}")
+    @PreDestroy
+    public void writeSnapshot() {
+        while (scores.size() > capacity) {
+            final Ranked lowest = ranking.pollLast();
+            if (lowest == null) {
+                break;
+            }
+            if (isCurrent(lowest)) {
+                scores.remove(lowest.id);
+            }
+        }
+        if (snapshotFile.isEmpty()) {
+            return;
+        }
+        final Path path = Paths.get(snapshotFile).toAbsolutePath();
+        try {
+            final Path temporary = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                final Map<Integer, Double> snapshot = new LinkedHashMap<>();
+                scores.forEach((id, score) -> snapshot.put(id, Double.longBitsToDouble(score.get())));
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(SNAPSHOT_VERSION);
+                out.writeInt(snapshot.size());
+                for (final Map.Entry<Integer, Double> entry : snapshot.entrySet()) {
+                    out.writeInt(entry.getKey());
+                    out.writeDouble(entry.getValue());
+                }
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UnexpectedException(GenericErrorCode.GEN_001, e);
+        }
+    }
+
+    /*
+     * This method adds the weight to the score of the question, and moves the question to its new place in the ranking.
+     * When the score is changed again before the question is placed, the place of the outdated score is removed by
+     * whichever update sees that its score is no longer current, so no outdated place is ever left behind.
+     */
+    private void addWeight(final int questionId, final double logWeight) {
+        AtomicLong score = scores.get(questionId);
+        if (score == null) {
+            final AtomicLong created = new AtomicLong(Double.doubleToLongBits(Double.NEGATIVE_INFINITY));
+            score = scores.putIfAbsent(questionId, created);
+            if (score == null) {
+                score = created;
+            }
+        }
+        while (true) {
+            final long bits = score.get();
+            final double logScore = Double.longBitsToDouble(bits);
+            final double updated = logAdd(logScore, logWeight);
+            final long updatedBits = Double.doubleToLongBits(updated);
+            if (score.compareAndSet(bits, updatedBits)) {
+                ranking.remove(new Ranked(questionId, logScore));
+                ranking.add(new Ranked(questionId, updated));
+                if (score.get() != updatedBits) {
+                    ranking.remove(new Ranked(questionId, updated));
+                }
+                return;
+            }
+        }
+    }
+
+    private void remove(final int questionId) {
+        final AtomicLong score = scores.remove(questionId);
+        if (score != null) {
+            ranking.remove(new Ranked(questionId, Double.longBitsToDouble(score.get())));
+        }
+    }
+
+    private boolean isCurrent(final Ranked ranked) {
+        final AtomicLong score = scores.get(ranked.id);
+        return score != null && Double.longBitsToDouble(score.get()) == ranked.logScore;
+    }
+
+    // This method returns log(exp(a) + exp(b)) without computing either exponential, which could overflow.
+    private static double logAdd(final double a, final double b) {
+        if (a == Double.NEGATIVE_INFINITY) {
+            return b;
+        }
+        final double max = Math.max(a, b);
+        return max + Math.log1p(Math.exp(-Math.abs(a - b)));
+    }
+
+    private static final class Ranked implements Comparable<Ranked> {
+
+        private final int id;
+
+        private final double logScore;
+
+        private Ranked(final int id, final double logScore) {
+            this.id = id;
+            this.logScore = logScore;
+        }
+
+        // The best score comes first, and the newer question on equal scores.
+        @Override
+        public int compareTo(final Ranked other) {
+            final int byScore = Double.compare(other.logScore, logScore);
+            return byScore != 0 ? byScore : Integer.compare(other.id, id);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.upgrad.quora.service.business;
+
+import com.auth0.jwt.algorithms.Algorithm;
+import com.upgrad.quora.service.common.GenericErrorCode;
+import com.upgrad.quora.service.common.UnexpectedException;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class holds the server-side keys used to sign and verify the JWT access tokens.
+ * New tokens are always signed with the active key. The older keys stay in the ring so that the tokens signed with
+ * them can still be verified until they expire, which allows the keys to be rotated without signing out every user.
+ * No key is shipped with the application, the startup fails unless the keys are supplied by the environment.
+ */
+@Component
+@ConfigurationProperties(prefix = "quora.auth.jwt")
+public class JwtKeyRing {
+
+    private String activeKeyId;
+
+    private Map<String, String> keys = new HashMap<>();
+
+    private final Map<String, Algorithm> algorithms = new HashMap<>();
+
+    // The algorithms are built once at startup, as building one for every signin is comparatively expensive.
+    @PostConstruct
+    public void init() {
+        if (keys.isEmpty()) {
+            throw new IllegalStateException("No JWT signing key is configured, supply quora.auth.jwt.keys.<id> and quora.auth.jwt.active-key-id "
+                    + "through the environment or an external configuration");
+        }
+        for (final Map.Entry<String, String> key : keys.entrySet()) {
+            if (key.getValue() == null || key.getValue().trim().isEmpty()) {
+                throw new IllegalStateException("The JWT key '" + key.getKey() + "' in quora.auth.jwt.keys is empty");
+            }
+            try {
+                algorithms.put(key.getKey(), Algorithm.HMAC512(key.getValue()));
+            } catch (IllegalArgumentException e) {
+                throw new UnexpectedException(GenericErrorCode.GEN_001, e);
+            }
+        }
+        if (!algorithms.containsKey(activeKeyId)) {
+            throw new IllegalStateException("The active JWT key '" + activeKeyId + "' is not present in quora.auth.jwt.keys");
+        }
+    }
+
+    // This method returns the token provider which signs new tokens with the active key.
+    public JwtTokenProvider getTokenProvider() {
+        return new JwtTokenProvider(activeKeyId, algorithms.get(activeKeyId));
+    }
+
+    /**
+     * @param keyId - key id found in the token header
+     * @return - the algorithm for the key, or null if the key is not in the ring
+     */
+    public Algorithm getAlgorithm(final String keyId) {
+        return keyId == null ? null : algorithms.get(keyId);
+    }
+
+    public String getActiveKeyId() {
+        return activeKeyId;
+    }
+
+    public void setActiveKeyId(String activeKeyId) {
+        this.activeKeyId = activeKeyId;
+    }
+
+    public Map<String, String> getKeys() {
+        return keys;
+    }
+
+    public void setKeys(Map<String, String> keys) {
+        this.keys = keys;
+    }
+}
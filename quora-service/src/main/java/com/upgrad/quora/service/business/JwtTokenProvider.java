@@ -1,12 +1,13 @@
 package com.upgrad.quora.service.business;
 
 import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTCreator;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.upgrad.quora.service.common.GenericErrorCode;
 import com.upgrad.quora.service.common.UnexpectedException;
 
+import java.time.Duration;
 import java.time.ZonedDateTime;
-import java.time.temporal.ChronoField;
 import java.util.Date;
 import java.util.UUID;
 
@@ -14,7 +15,15 @@ import java.util.UUID;
  * This class is used in the project to provide JWT token after successful authentication
  */
 public class JwtTokenProvider {
-    private static final String TOKEN_ISSUER = "https://quora.io";
+    static final String TOKEN_ISSUER = "https://quora.io";
+
+    // Name of the claim which carries the database id of the user, so that the user can be referenced without a lookup.
+    static final String USER_ID_CLAIM = "uid";
+
+    // Time for which an access token stays valid after the signin.
+    public static final Duration TOKEN_LIFETIME = Duration.ofHours(8);
+
+    private final String keyId;
 
     private final Algorithm algorithm;
 
@@ -22,6 +31,7 @@ public class JwtTokenProvider {
      * A constructor for JwtTokenProvider class which receives user password as an argument to be used in the signature part of JWT access token.
      */
     public JwtTokenProvider(final String secret) {
+        keyId = null;
         try {
             algorithm = Algorithm.HMAC512(secret);
         } catch (IllegalArgumentException e) {
@@ -29,6 +39,18 @@ public class JwtTokenProvider {
         }
     }
 
+    /**
+     * A constructor for JwtTokenProvider class which signs the tokens with a key from the server-side key ring.
+     * The key id is written in the token header so that the token can be verified without any database lookup.
+     */
+    public JwtTokenProvider(final String keyId, final Algorithm algorithm) {
+        if (algorithm == null) {
+            throw new IllegalStateException("No JWT signing key is configured for the key id '" + keyId + "'");
+        }
+        this.keyId = keyId;
+        this.algorithm = algorithm;
+    }
+
 
     /**
      * This method receives uuid of the user, current time and expiry time of the access token.
@@ -41,14 +63,32 @@ public class JwtTokenProvider {
      * @return - generated JWT token
      */
     public String generateToken(final String userUuid, final ZonedDateTime issuedDateTime, final ZonedDateTime expiresDateTime) {
+        return generateToken(userUuid, null, issuedDateTime, expiresDateTime);
+    }
 
-        final Date issuedAt = new Date(issuedDateTime.getLong(ChronoField.INSTANT_SECONDS));
-        final Date expiresAt = new Date(expiresDateTime.getLong(ChronoField.INSTANT_SECONDS));
+    /**
+     * @param userUuid        - uuid of the user
+     * @param userId          - database id of the user, written in the token if not null
+     * @param issuedDateTime  - current time
+     * @param expiresDateTime - expiry time of the JWT token
+     * @return - generated JWT token
+     */
+    public String generateToken(final String userUuid, final Integer userId, final ZonedDateTime issuedDateTime, final ZonedDateTime expiresDateTime) {
+
+        final Date issuedAt = Date.from(issuedDateTime.toInstant());
+        final Date expiresAt = Date.from(expiresDateTime.toInstant());
 
-        return JWT.create().withIssuer(TOKEN_ISSUER) //
-                .withKeyId(UUID.randomUUID().toString())
+        final JWTCreator.Builder builder = JWT.create().withIssuer(TOKEN_ISSUER) //
+                .withJWTId(UUID.randomUUID().toString())
                 .withAudience(userUuid) //
-                .withIssuedAt(issuedAt).withExpiresAt(expiresAt).sign(algorithm);
+                .withIssuedAt(issuedAt).withExpiresAt(expiresAt);
+        if (keyId != null) {
+            builder.withKeyId(keyId);
+        }
+        if (userId != null) {
+            builder.withClaim(USER_ID_CLAIM, userId);
+        }
+        return builder.sign(algorithm);
     }
 
 }
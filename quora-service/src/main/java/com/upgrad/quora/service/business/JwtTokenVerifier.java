@@ -0,0 +1,67 @@
+package com.upgrad.quora.service.business;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * This class verifies the JWT access tokens locally, without any database lookup.
+ * The signature is checked against the key named in the token header, and the issuer and the expiry time are checked
+ * against the claims of the token. The revocation list is consulted for the tokens revoked before their expiry.
+ */
+@Component
+public class JwtTokenVerifier {
+
+    @Autowired
+    private JwtKeyRing jwtKeyRing;
+
+    @Autowired
+    private AccessTokenRevocationList accessTokenRevocationList;
+
+    // A verifier is built once per key id and reused, as it is immutable and safe to share between threads.
+    private final ConcurrentMap<String, JWTVerifier> verifiers = new ConcurrentHashMap<>();
+
+    /**
+     * @param accessToken - access token sent in the authorization header
+     * @return - the decoded token
+     * @throws JWTVerificationException - if the token is malformed, signed with an unknown key, tampered with or expired
+     */
+    public DecodedJWT verify(final String accessToken) throws JWTVerificationException {
+        final String keyId = JWT.decode(accessToken).getKeyId();
+        final Algorithm algorithm = jwtKeyRing.getAlgorithm(keyId);
+        if (algorithm == null) {
+            throw new JWTVerificationException("The token is not signed with a key from the key ring");
+        }
+        return verifiers.computeIfAbsent(keyId, id -> JWT.require(algorithm).withIssuer(JwtTokenProvider.TOKEN_ISSUER).build())
+                .verify(accessToken);
+    }
+
+    // This method checks if a verified token was revoked by a signout or by the deletion of its user.
+    public boolean isRevoked(final DecodedJWT token) {
+        return accessTokenRevocationList.isTokenRevoked(token.getId())
+                || accessTokenRevocationList.isUserRevoked(token.getAudience().get(0), token.getIssuedAt().getTime());
+    }
+
+    // This method revokes the access token if it is a JWT, the tokens which cannot be decoded are ignored.
+    public void revoke(final String accessToken) {
+        try {
+            final DecodedJWT token = JWT.decode(accessToken);
+            if (token.getId() != null && token.getExpiresAt() != null) {
+                accessTokenRevocationList.revokeToken(token.getId(), token.getExpiresAt().getTime());
+            }
+        } catch (JWTVerificationException e) {
+            // Not a JWT, so it can never pass the stateless verification in the first place.
+        }
+    }
+
+    public void revokeUser(final String userUuid) {
+        accessTokenRevocationList.revokeUser(userUuid, System.currentTimeMillis());
+    }
+}
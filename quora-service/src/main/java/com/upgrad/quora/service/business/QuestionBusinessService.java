@@ -1,87 +1,116 @@
 package com.upgrad.quora.service.business;
 
+import com.upgrad.quora.service.common.KeysetCursor;
+import com.upgrad.quora.service.common.KeysetPage;
+import com.upgrad.quora.service.common.RowHandler;
 import com.upgrad.quora.service.dao.UserDao;
+import com.upgrad.quora.service.dto.HotQuestion;
+import com.upgrad.quora.service.dto.QuestionDetails;
+import com.upgrad.quora.service.dto.QuestionSearchResult;
+import com.upgrad.quora.service.dto.QuestionSuggestion;
 import com.upgrad.quora.service.entity.QuestionEntity;
-import com.upgrad.quora.service.entity.UserAuthTokenEntity;
 import com.upgrad.quora.service.entity.UserEntity;
 import com.upgrad.quora.service.exception.AuthorizationFailedException;
+import com.upgrad.quora.service.exception.DuplicateQuestionException;
+import com.upgrad.quora.service.exception.InvalidPaginationException;
 import com.upgrad.quora.service.exception.InvalidQuestionException;
-import com.upgrad.quora.service.exception.SignUpRestrictedException;
 import com.upgrad.quora.service.exception.UserNotFoundException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class QuestionBusinessService {
     @Autowired
     private UserDao userDao;
+    @Autowired
+    private QuestionCache questionCache;
+    @Autowired
+    private ResourceVersions resourceVersions;
+    @Autowired
+    private QuestionSearchIndex questionSearchIndex;
+    @Autowired
+    private QuestionSuggestionIndex questionSuggestionIndex;
+    @Autowired
+    private QuestionDuplicateIndex questionDuplicateIndex;
+    @Autowired
+    private HotQuestionRanking hotQuestionRanking;
 
-    // This method fetches the authorization token of the logged in user.
-    // We need to make sure that the user is logged in and the session hasn't timed out.
-    public UserAuthTokenEntity getUserAuthToken(final String authorizationToken) throws AuthorizationFailedException {
-        UserAuthTokenEntity userAuthTokenEntity = userDao.getUserAuthToken(authorizationToken);
-        if (userAuthTokenEntity == null) {
-            throw new AuthorizationFailedException("ATHR-001", "User has not signed in");
-        }
-        if (userAuthTokenEntity.getLogoutAt() != null) {
-            throw new AuthorizationFailedException("ATHR-002", "User is signed out.Sign in first to post a question");
-        }
+    @Value("${quora.duplicates.reject:false}")
+    private boolean rejectDuplicates;
 
-        return userAuthTokenEntity;
-    }
+    @Value("${quora.pagination.default-page-size:20}")
+    private int defaultPageSize;
 
-    // This method fetches the user ID and throws an exception if no user is found logged in.
-    public UserEntity getUser(final String userId) throws UserNotFoundException {
-        UserEntity userEntity = userDao.getUser(userId);
-        if (userEntity == null) {
-            throw new UserNotFoundException("USR-001", "User does not exist");
-        }
-        return userEntity;
-    }
+    @Value("${quora.pagination.max-page-size:100}")
+    private int maxPageSize;
 
-    // This method creates a question in the database under the name of the logged in user.
+    @Value("${quora.export.fetch-size:500}")
+    private int exportFetchSize;
+
+    /*
+     * This method creates a question in the database under the name of the logged in user.
+     * A question nearly identical to an existing one is rejected, or only flagged with the uuid of the existing question
+     * when duplicates are not rejected. Two nearly identical questions posted at the same moment may both be created.
+     */
     @Transactional(propagation = Propagation.REQUIRED)
-    public QuestionEntity createQuestion(QuestionEntity questionEntity) {
-        return userDao.createQuestion(questionEntity);
+    public QuestionEntity createQuestion(QuestionEntity questionEntity) throws DuplicateQuestionException {
+        final QuestionEntity duplicate = findDuplicate(questionEntity.getContent());
+        if (duplicate != null) {
+            if (rejectDuplicates) {
+                throw new DuplicateQuestionException("QUES-002", "A nearly identical question already exists: " + duplicate.getUuid());
+            }
+            questionEntity.setDuplicateOf(duplicate.getUuid());
+        }
+        resourceVersions.questionsChanged();
+        QuestionEntity createdQuestion = userDao.createQuestion(questionEntity);
+        questionSearchIndex.questionCreated(createdQuestion);
+        questionSuggestionIndex.questionCreated(createdQuestion);
+        questionDuplicateIndex.questionCreated(createdQuestion);
+        return createdQuestion;
     }
 
-    // This method fetches the authorization token for the questions.
-    // We need to make sure that the user is logged in and the session hasn't timed out.
-    public UserAuthTokenEntity getUserAuthTokenForGetQuestions(final String authorizationToken) throws AuthorizationFailedException {
-        UserAuthTokenEntity userAuthTokenEntity = userDao.getUserAuthToken(authorizationToken);
-        if (userAuthTokenEntity == null) {
-            throw new AuthorizationFailedException("ATHR-001", "User has not signed in");
-        }
-        if (userAuthTokenEntity.getLogoutAt() != null) {
-            throw new AuthorizationFailedException("ATHR-002", "User is signed out.Sign in first to get all questions");
-        }
-
-        return userAuthTokenEntity;
+    // A question the index still holds but which is no longer in the database, deleted by another instance, is dropped from the index.
+    private QuestionEntity findDuplicate(final String content) {
+        for (Integer duplicateId = questionDuplicateIndex.findDuplicate(content); duplicateId != null;
+             duplicateId = questionDuplicateIndex.findDuplicate(content)) {
+            final QuestionEntity duplicate = userDao.findQuestion(duplicateId);
+            if (duplicate != null) {
+                return duplicate;
+            }
+            questionDuplicateIndex.questionMissing(duplicateId);
+        }
+        return null;
     }
 
-    // This method fetches all the questions in the database.
-    public List<QuestionEntity> getAllQuestions() {
-        return userDao.getAllQuestions();
+    /*
+     * This method fetches one page of the questions in the database, newest first.
+     * The page starts after the question the cursor points to, or at the newest question if no cursor is given.
+     * One question more than the page size is fetched, only to know if there is a next page.
+     */
+    @Transactional(propagation = Propagation.REQUIRED, readOnly = true)
+    public KeysetPage<QuestionDetails> getAllQuestions(final String cursor, final Integer limit) throws InvalidPaginationException {
+        final int pageSize = getPageSize(limit);
+        final List<QuestionDetails> questions = userDao.getAllQuestions(decodeCursor(cursor), pageSize + 1);
+        return KeysetPage.of(questions, pageSize, QuestionBusinessService::getPosition);
     }
 
-    // This method fetches the details of the user who is logged in and wants to edit a question.
-    // We need to make sure that the user is logged in and the session hasn't timed out.
-    public UserEntity getLoggedInUserDetailsGetEditQuestion(final String authorizationToken) throws AuthorizationFailedException {
-        UserAuthTokenEntity userAuthTokenEntity = userDao.getUserAuthToken(authorizationToken);
-        if (userAuthTokenEntity == null) {
-            throw new AuthorizationFailedException("ATHR-001", "User has not signed in");
-        }
-        if (userAuthTokenEntity.getLogoutAt() != null) {
-            throw new AuthorizationFailedException("ATHR-002", "User is signed out.Sign in first to edit the question");
-        }
-        UserEntity userEntity = userDao.getUser(userAuthTokenEntity.getUuid());
-
-
-        return userEntity;
+    /*
+     * This method streams every question in the database to the handler, oldest first.
+     * The transaction is read-only and is held open until the last question has been handled.
+     */
+    @Transactional(propagation = Propagation.REQUIRED, readOnly = true)
+    public void exportAllQuestions(final RowHandler<QuestionDetails> handler) throws IOException {
+        userDao.exportAllQuestions(exportFetchSize, handler);
     }
 
     // This method call is made when the user wants to edit an existing question.
@@ -96,56 +125,111 @@ public class QuestionBusinessService {
         if (!questionEntity.getUser().getId().equals(loggedInUser.getId())) {
             throw new AuthorizationFailedException("ATHR-003", "Only the question owner can edit the question");
         }
-        return userDao.editQuestion(questionEntity, questionEditContent);
+        questionCache.invalidateQuestion(questionId);
+        resourceVersions.questionsChanged();
+        resourceVersions.answersChanged(questionId);
+        QuestionEntity editedQuestion = userDao.editQuestion(questionEntity, questionEditContent);
+        questionSearchIndex.questionEdited(editedQuestion);
+        questionSuggestionIndex.questionEdited(editedQuestion);
+        questionDuplicateIndex.questionEdited(editedQuestion);
+        return editedQuestion;
     }
 
     /*
-     * This method fetches the authorization token of the user who wishes to delete a question.
+     * This method deletes a question on behalf of the logged in user.
      * We need to make sure the following checks :
      * 1) If the user logged in is the one who posted the question in the first place.
      * 2) If the user logged in is the admin, then he/she can also delete the question.
-     * 3) We need to make sure that the user is logged in and the session hasn't timed out.
      */
     @Transactional(propagation = Propagation.REQUIRED)
-    public QuestionEntity getUserAuthTokenForDeleteQuestion(final String authorizationToken, final String questionId) throws AuthorizationFailedException, InvalidQuestionException {
-        UserAuthTokenEntity userAuthTokenEntity = userDao.getUserAuthToken(authorizationToken);
-        if (userAuthTokenEntity == null) {
-            throw new AuthorizationFailedException("ATHR-001", "User has not signed in");
-        }
-        if (userAuthTokenEntity.getLogoutAt() != null) {
-            throw new AuthorizationFailedException("ATHR-002", "User is signed out.Sign in first to delete a question");
-        }
+    public QuestionEntity deleteQuestion(final String questionId, final UserEntity loggedInUser) throws AuthorizationFailedException, InvalidQuestionException {
         QuestionEntity questionEntity = userDao.getQuestionById(questionId);
         if (questionEntity == null) {
             throw new InvalidQuestionException("QUES-001", "Entered question uuid does not exist");
         }
-        UserEntity userEntity = userDao.getUser(userAuthTokenEntity.getUuid());
-        if (!questionEntity.getUser().getId().equals(userEntity.getId()) && userEntity.getRole().equals("nonadmin")) {
+        if (!questionEntity.getUser().getId().equals(loggedInUser.getId()) && loggedInUser.getRole().equals("nonadmin")) {
             throw new AuthorizationFailedException("ATHR-003", "Only the question owner or admin can delete the question");
         }
         userDao.deleteQuestion(questionEntity);
+        questionCache.invalidateQuestion(questionId);
+        resourceVersions.questionsChanged();
+        resourceVersions.answersChanged(questionId);
+        questionSearchIndex.questionsDeleted(Collections.singletonList(questionEntity.getId()));
+        questionSuggestionIndex.questionsDeleted(Collections.singletonList(questionEntity.getId()));
+        questionDuplicateIndex.questionsDeleted(Collections.singletonList(questionEntity.getId()));
+        hotQuestionRanking.questionsDeleted(Collections.singletonList(questionEntity.getId()));
         return questionEntity;
     }
 
-    // This question fetches the authorization token for getting all questions posted by the current user.
-    public UserAuthTokenEntity getUserAuthTokenForGettingAllQuestionsOfUser(final String authorizationToken) throws AuthorizationFailedException {
-        UserAuthTokenEntity userAuthTokenEntity = userDao.getUserAuthToken(authorizationToken);
-        if (userAuthTokenEntity == null) {
-            throw new AuthorizationFailedException("ATHR-001", "User has not signed in");
-        }
-        if (userAuthTokenEntity.getLogoutAt() != null) {
-            throw new AuthorizationFailedException("ATHR-002", "User is signed out.Sign in first to get all questions posted by a specific user");
-        }
-        return userAuthTokenEntity;
+    // This method searches the questions by the words of the query, from the in-memory index, best ranked first.
+    public List<QuestionSearchResult> searchQuestions(final String query, final Integer limit) throws InvalidPaginationException {
+        return questionSearchIndex.search(query, getPageSize(limit));
+    }
+
+    // This method suggests the newest questions starting with the text the user is typing, from the in-memory trie.
+    public List<QuestionSuggestion> suggestQuestions(final String prefix, final Integer limit) throws InvalidPaginationException {
+        return questionSuggestionIndex.suggest(prefix, getPageSize(limit));
+    }
+
+    /*
+     * This method fetches the hottest questions, ranked in memory by their recent answers.
+     * Only the details of the ranked questions are read from the database, by their ids.
+     */
+    @Transactional(propagation = Propagation.REQUIRED, readOnly = true)
+    public List<HotQuestion> getHotQuestions(final Integer limit) throws InvalidPaginationException {
+        final Map<Integer, Double> scores = hotQuestionRanking.getHotQuestions(getPageSize(limit));
+        final Map<Integer, QuestionDetails> questions = new HashMap<>();
+        for (final QuestionDetails question : userDao.getQuestionDetailsByIds(scores.keySet())) {
+            questions.put(question.getId(), question);
+        }
+        final List<HotQuestion> hotQuestions = new ArrayList<>(scores.size());
+        for (final Map.Entry<Integer, Double> score : scores.entrySet()) {
+            final QuestionDetails question = questions.get(score.getKey());
+            if (question != null) {
+                hotQuestions.add(new HotQuestion(question, score.getValue()));
+            } else {
+                // The question was deleted outside of this instance, e.g. before the ranking was restored from its snapshot.
+                hotQuestionRanking.questionsDeleted(Collections.singletonList(score.getKey()));
+            }
+        }
+        return hotQuestions;
     }
 
-    // This question fetches all the questions posted by the current user.
-    public List<QuestionEntity> getAllQuestionsOfUser(final String userId) throws UserNotFoundException {
-        UserEntity userEntity = userDao.getUser(userId);
-        List<QuestionEntity> allQuestionsOfUser = userDao.getAllQuestionsOfUser(userEntity);
-        if (allQuestionsOfUser.isEmpty()) {
+    // This question fetches one page of the questions posted by the user, newest first.
+    @Transactional(propagation = Propagation.REQUIRED, readOnly = true)
+    public KeysetPage<QuestionDetails> getAllQuestionsOfUser(final String userId, final String cursor, final Integer limit) throws UserNotFoundException, InvalidPaginationException {
+        final int pageSize = getPageSize(limit);
+        final KeysetCursor after = decodeCursor(cursor);
+        // An empty page cannot tell a user without questions from a user who does not exist, so the user is looked up first.
+        if (userDao.getUser(userId) == null) {
             throw new UserNotFoundException("USR-001", "User with entered uuid whose question details are to be seen does not exist");
         }
-        return allQuestionsOfUser;
+        List<QuestionDetails> allQuestionsOfUser = userDao.getAllQuestionsOfUser(userId, after, pageSize + 1);
+        return KeysetPage.of(allQuestionsOfUser, pageSize, QuestionBusinessService::getPosition);
+    }
+
+    // The cursor and the limit are checked without any query, so a request answered before the page is read still rejects them.
+    public void checkPage(final String cursor, final Integer limit) throws InvalidPaginationException {
+        getPageSize(limit);
+        decodeCursor(cursor);
+    }
+
+    // The page size asked for is capped, so a single request can never fetch an unbounded number of rows.
+    private int getPageSize(final Integer limit) throws InvalidPaginationException {
+        if (limit == null) {
+            return defaultPageSize;
+        }
+        if (limit < 1) {
+            throw new InvalidPaginationException("PAG-002", "Entered limit must be a positive number");
+        }
+        return Math.min(limit, maxPageSize);
+    }
+
+    private static KeysetCursor decodeCursor(final String cursor) throws InvalidPaginationException {
+        return cursor == null || cursor.isEmpty() ? null : KeysetCursor.decode(cursor);
+    }
+
+    private static KeysetCursor getPosition(final QuestionDetails question) {
+        return new KeysetCursor(question.getDate(), question.getId());
     }
 }
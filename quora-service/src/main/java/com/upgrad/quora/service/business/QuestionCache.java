@@ -0,0 +1,99 @@
+package com.upgrad.quora.service.business;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.upgrad.quora.service.common.CacheInvalidation;
+import com.upgrad.quora.service.common.CacheMetrics;
+import com.upgrad.quora.service.dao.UserDao;
+import com.upgrad.quora.service.dto.AnswerDetails;
+import com.upgrad.quora.service.dto.QuestionDetails;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class keeps recently read questions, and the answers posted for them, in bounded in-memory caches keyed by the
+ * uuid of the question. Only the immutable projections are cached, never the entities, so a cached value can be
+ * shared between requests safely.
+ * <p>
+ * The business services invalidate the entries of a question whenever it or one of its answers is changed. Each
+ * instance of the application only knows about its own changes, so the entries also expire after a fixed time.
+ */
+@Component
+public class QuestionCache implements MeterBinder {
+
+    private static final String QUESTION_CACHE_NAME = "questions";
+
+    private static final String ANSWER_CACHE_NAME = "questionAnswers";
+
+    @Autowired
+    private UserDao userDao;
+
+    private final Cache<String, QuestionDetails> questions;
+
+    private final Cache<String, List<AnswerDetails>> answers;
+
+    public QuestionCache(@Value("${quora.cache.questions.maximum-size:10000}") final long maximumQuestions,
+                         @Value("${quora.cache.question-answers.maximum-size:10000}") final long maximumAnswerLists,
+                         @Value("${quora.cache.expire-after-write-seconds:600}") final long expireAfterWriteSeconds) {
+        this.questions = Caffeine.newBuilder()
+                .maximumSize(maximumQuestions)
+                .expireAfterWrite(expireAfterWriteSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        this.answers = Caffeine.newBuilder()
+                .maximumSize(maximumAnswerLists)
+                .expireAfterWrite(expireAfterWriteSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * @param questionId - uuid of the question
+     * @return - the question, or null if there is no question with the uuid
+     */
+    public QuestionDetails getQuestion(final String questionId) {
+        return questions.get(questionId, userDao::getQuestionDetailsById);
+    }
+
+    // This method returns the answers posted for the question, as a list which cannot be modified.
+    public List<AnswerDetails> getAnswers(final QuestionDetails question) {
+        return answers.get(question.getUuid(), questionId -> Collections.unmodifiableList(userDao.getAllAnswersOfQuestion(question)));
+    }
+
+    // This method removes the question and its answers, used when the question is edited or deleted, or an answer is created or deleted.
+    public void invalidateQuestion(final String questionId) {
+        CacheInvalidation.runNowAndAfterCommit(() -> {
+            questions.invalidate(questionId);
+            answers.invalidate(questionId);
+        });
+    }
+
+    // This method removes the answers of the question, used when one of them is edited.
+    public void invalidateAnswers(final String questionId) {
+        CacheInvalidation.runNowAndAfterCommit(() -> answers.invalidate(questionId));
+    }
+
+    // This method removes the questions posted by a deleted user, and the questions the user answered along with their answers.
+    public void invalidateUser(final Collection<String> questionIds, final Collection<String> answeredQuestionIds) {
+        CacheInvalidation.runNowAndAfterCommit(() -> {
+            questions.invalidateAll(questionIds);
+            answers.invalidateAll(questionIds);
+            questions.invalidateAll(answeredQuestionIds);
+            answers.invalidateAll(answeredQuestionIds);
+        });
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        CacheMetrics.monitor(registry, questions, QUESTION_CACHE_NAME);
+        CacheMetrics.monitor(registry, answers, ANSWER_CACHE_NAME);
+    }
+}
@@ -0,0 +1,328 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.service.common.AfterCommit;
+import com.upgrad.quora.service.common.Tokenizer;
+import com.upgrad.quora.service.entity.QuestionEntity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * This class finds the existing questions nearly identical to a new one, so that the same question is not posted again
+ * with only a few words changed.
+ * Two questions are compared by the Jaccard similarity of their pairs of consecutive words, which is estimated from a
+ * MinHash signature of each question. Only the lowest 8 bits of every hash are kept, so a signature takes one byte per
+ * hash, and the estimate is corrected for the hashes which are equal by chance.
+ * The signatures are split into bands, and the questions whose band is equal are found in a hash table per band, so a
+ * question is only compared with the few questions likely to be similar to it (locality-sensitive hashing).
+ * The index is loaded from the question table at startup and is kept up to date when a question is created, edited or
+ * deleted. It is held in memory, so every instance of the application only sees the changes it made itself.
+ */
+@Component
+public class QuestionDuplicateIndex implements QuestionLoadTarget<List<QuestionDuplicateIndex.Signature>> {
+
+    // A band of 4 one-byte hashes is read as a single int. With 12 bands, questions with a similarity of 0.8 share a
+    // band 99.8% of the time, and questions with a similarity of 0.3 only 9% of the time.
+    private static final int ROWS = 4;
+
+    private static final int BANDS = 12;
+
+    private static final int HASHES = ROWS * BANDS;
+
+    // The probability that the lowest 8 bits of the hashes of two different pairs of words are equal.
+    private static final double CHANCE = 1.0 / 256;
+
+    private static final int[] SEEDS = new int[HASHES];
+
+    static {
+        for (int i = 0; i < HASHES; i++) {
+            SEEDS[i] = mix(0x9E3779B9 * (i + 1));
+        }
+    }
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    // The question ids start at 1, so 0 marks the end of a chain of questions in a bucket.
+    private static final int NONE = 0;
+
+    @Value("${quora.duplicates.threshold:0.8}")
+    private double threshold;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // The signatures are stored at the question id, HASHES bytes each.
+    private byte[] signatures = new byte[INITIAL_CAPACITY * HASHES];
+
+    private final BitSet indexed = new BitSet();
+
+    // For every band, the first question of each bucket, and the next question of the same bucket after each question.
+    private int[][] buckets = new int[BANDS][INITIAL_CAPACITY];
+
+    private int[][] next = new int[BANDS][INITIAL_CAPACITY];
+
+    // The questions deleted while the index is being loaded, so that the loader does not add them back.
+    private Set<Integer> deletedWhileLoading;
+
+    // The index is changed only once the question is committed, so it never holds a question which was rolled back.
+    public void questionCreated(final QuestionEntity questionEntity) {
+        put(questionEntity);
+    }
+
+    public void questionEdited(final QuestionEntity questionEntity) {
+        put(questionEntity);
+    }
+
+    public void questionsDeleted(final Collection<Integer> questionIds) {
+        AfterCommit.run(() -> questionIds.forEach(this::remove));
+    }
+
+    // A question found by the index but missing from the database is removed at once, whatever the transaction.
+    public void questionMissing(final Integer questionId) {
+        remove(questionId);
+    }
+
+    /**
+     * @param content - content of a question about to be posted
+     * @return - the id of the most similar question whose estimated similarity reaches the threshold, or null if none
+     */
+    public Integer findDuplicate(final String content) {
+        final Signature signature = Signature.of(NONE, content);
+        if (signature == null) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            final int mask = buckets[0].length - 1;
+            Integer duplicate = null;
+            double bestSimilarity = threshold;
+            for (int band = 0; band < BANDS; band++) {
+                final int key = signature.band(band);
+                for (int id = buckets[band][mix(key) & mask]; id != NONE; id = next[band][id]) {
+                    if (band(id, band) == key) {
+                        final double similarity = similarity(signature.hashes, id);
+                        if (similarity >= bestSimilarity) {
+                            duplicate = id;
+                            bestSimilarity = similarity;
+                        }
+                    }
+                }
+            }
+            return duplicate;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void startLoading() {
+        setDeletedWhileLoading(new HashSet<>());
+    }
+
+    // The signatures are computed on the loader threads.
+    @Override
+    public List<Signature> prepare(final List<Object[]> rows) {
+        final List<Signature> prepared = new ArrayList<>(rows.size());
+        for (final Object[] row : rows) {
+            final Signature signature = Signature.of((Integer) row[0], (String) row[2]);
+            if (signature != null) {
+                prepared.add(signature);
+            }
+        }
+        return prepared;
+    }
+
+    // A question which was already added or deleted while its range was being read is left as it is.
+    @Override
+    public void addLoaded(final List<Signature> prepared) {
+        lock.writeLock().lock();
+        try {
+            for (final Signature signature : prepared) {
+                if (!deletedWhileLoading.contains(signature.id) && !indexed.get(signature.id)) {
+                    add(signature);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void finishLoading() {
+        setDeletedWhileLoading(null);
+    }
+
+    private void put(final QuestionEntity questionEntity) {
+        final int id = questionEntity.getId();
+        final Signature signature = Signature.of(id, questionEntity.getContent());
+        AfterCommit.run(() -> {
+            lock.writeLock().lock();
+            try {
+                delete(id);
+                if (signature != null) {
+                    add(signature);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    private void remove(final int id) {
+        lock.writeLock().lock();
+        try {
+            delete(id);
+            if (deletedWhileLoading != null) {
+                deletedWhileLoading.add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void setDeletedWhileLoading(final Set<Integer> deletedIds) {
+        lock.writeLock().lock();
+        try {
+            deletedWhileLoading = deletedIds;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void add(final Signature signature) {
+        ensureCapacity(signature.id);
+        System.arraycopy(signature.hashes, 0, signatures, signature.id * HASHES, HASHES);
+        indexed.set(signature.id);
+        final int mask = buckets[0].length - 1;
+        for (int band = 0; band < BANDS; band++) {
+            final int bucket = mix(signature.band(band)) & mask;
+            next[band][signature.id] = buckets[band][bucket];
+            buckets[band][bucket] = signature.id;
+        }
+    }
+
+    private void delete(final int id) {
+        if (!indexed.get(id)) {
+            return;
+        }
+        final int mask = buckets[0].length - 1;
+        for (int band = 0; band < BANDS; band++) {
+            final int bucket = mix(band(id, band)) & mask;
+            if (buckets[band][bucket] == id) {
+                buckets[band][bucket] = next[band][id];
+            } else {
+                int previous = buckets[band][bucket];
+                while (next[band][previous] != id) {
+                    previous = next[band][previous];
+                }
+                next[band][previous] = next[band][id];
+            }
+            next[band][id] = NONE;
+        }
+        indexed.clear(id);
+    }
+
+    /*
+     * This method grows the arrays to hold the question id. There are as many buckets as ids, so the buckets are
+     * rebuilt from the stored signatures whenever the arrays grow.
+     */
+    private void ensureCapacity(final int id) {
+        final int capacity = next[0].length;
+        if (id < capacity) {
+            return;
+        }
+        final int grownCapacity = Math.max(Integer.highestOneBit(id) * 2, capacity * 2);
+        signatures = Arrays.copyOf(signatures, grownCapacity * HASHES);
+        buckets = new int[BANDS][grownCapacity];
+        next = new int[BANDS][grownCapacity];
+        final int mask = grownCapacity - 1;
+        for (int indexedId = indexed.nextSetBit(0); indexedId >= 0; indexedId = indexed.nextSetBit(indexedId + 1)) {
+            for (int band = 0; band < BANDS; band++) {
+                final int bucket = mix(band(indexedId, band)) & mask;
+                next[band][indexedId] = buckets[band][bucket];
+                buckets[band][bucket] = indexedId;
+            }
+        }
+    }
+
+    private int band(final int id, final int band) {
+        return readBand(signatures, id * HASHES + band * ROWS);
+    }
+
+    private double similarity(final byte[] hashes, final int id) {
+        int equal = 0;
+        final int offset = id * HASHES;
+        for (int i = 0; i < HASHES; i++) {
+            if (hashes[i] == signatures[offset + i]) {
+                equal++;
+            }
+        }
+        return ((double) equal / HASHES - CHANCE) / (1 - CHANCE);
+    }
+
+    private static int readBand(final byte[] hashes, final int offset) {
+        return (hashes[offset] & 0xFF) << 24 | (hashes[offset + 1] & 0xFF) << 16 | (hashes[offset + 2] & 0xFF) << 8 | hashes[offset + 3] & 0xFF;
+    }
+
+    // The finalizer of MurmurHash3, which spreads every bit of the value over all the bits of the hash.
+    private static int mix(int value) {
+        value ^= value >>> 16;
+        value *= 0x85EBCA6B;
+        value ^= value >>> 13;
+        value *= 0xC2B2AE35;
+        value ^= value >>> 16;
+        return value;
+    }
+
+    /**
+     * This class holds the MinHash signature of a question. It is built outside of the lock, so the loader threads and
+     * the requests do not wait on each other to hash the words.
+     */
+    static final class Signature {
+
+        private final int id;
+
+        private final byte[] hashes;
+
+        private Signature(final int id, final byte[] hashes) {
+            this.id = id;
+            this.hashes = hashes;
+        }
+
+        // A question of a single word is hashed as that word. A question without any word has no signature.
+        private static Signature of(final int id, final String content) {
+            final List<String> words = Tokenizer.tokenize(content);
+            if (words.isEmpty()) {
+                return null;
+            }
+            final int[] minimums = new int[HASHES];
+            Arrays.fill(minimums, Integer.MAX_VALUE);
+            for (int i = Math.min(1, words.size() - 1); i < words.size(); i++) {
+                final int shingle = i == 0 ? words.get(0).hashCode() : words.get(i - 1).hashCode() * 0x9E3779B1 + words.get(i).hashCode();
+                for (int j = 0; j < HASHES; j++) {
+                    final int hash = mix(shingle ^ SEEDS[j]) & Integer.MAX_VALUE;
+                    if (hash < minimums[j]) {
+                        minimums[j] = hash;
+                    }
+                }
+            }
+            final byte[] hashes = new byte[HASHES];
+            for (int j = 0; j < HASHES; j++) {
+                hashes[j] = (byte) minimums[j];
+            }
+            return new Signature(id, hashes);
+        }
+
+        private int band(final int band) {
+            return readBand(hashes, band * ROWS);
+        }
+    }
+}
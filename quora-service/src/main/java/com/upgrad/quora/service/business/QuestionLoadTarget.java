@@ -0,0 +1,27 @@
+package com.upgrad.quora.service.business;
+
+import java.util.List;
+
+/**
+ * This interface is implemented by the in-memory structures built from every question at startup.
+ * The question loader reads the questions once for all of them, so they share the strings of the questions.
+ *
+ * @param <T> - the form a range of questions is prepared in before it is added
+ */
+public interface QuestionLoadTarget<T> {
+
+    // Called before the first range is prepared.
+    void startLoading();
+
+    /**
+     * @param rows - the id, uuid and content of the questions in a range of ids
+     * @return - the range in the form it is added in, prepared on one of the loader threads
+     */
+    T prepare(List<Object[]> rows);
+
+    // Called on a single thread with every prepared range, in the order of the ids.
+    void addLoaded(T prepared);
+
+    // Called after the last range is added, or once the loading has failed.
+    void finishLoading();
+}
@@ -0,0 +1,97 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.service.common.GenericErrorCode;
+import com.upgrad.quora.service.common.UnexpectedException;
+import com.upgrad.quora.service.dao.UserDao;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * This class reads every question from the database at startup, for the in-memory structures built from them.
+ * The questions are read in ranges of ids by several threads, and every range is prepared for all the structures on
+ * the thread which read it. Only a few ranges are read ahead of the one being added, to bound the memory used.
+ */
+@Component
+public class QuestionLoader {
+
+    @Autowired
+    private UserDao userDao;
+
+    @Autowired
+    private List<QuestionLoadTarget<?>> targets;
+
+    @Value("${quora.question-loader.threads:4}")
+    private int threads;
+
+    @Value("${quora.question-loader.batch-size:10000}")
+    private int batchSize;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public QuestionLoader(final PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        final Integer maxId = userDao.getMaxQuestionId();
+        if (maxId == null) {
+            return;
+        }
+        targets.forEach(QuestionLoadTarget::startLoading);
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final Deque<Future<List<Object>>> batches = new ArrayDeque<>();
+            int firstId = 1;
+            while (firstId <= maxId || !batches.isEmpty()) {
+                while (firstId <= maxId && batches.size() < threads * 2) {
+                    final int batchFirstId = firstId;
+                    final int batchLastId = (int) Math.min((long) firstId + batchSize - 1, maxId);
+                    batches.add(executor.submit(() -> prepare(batchFirstId, batchLastId)));
+                    firstId = batchLastId + 1;
+                }
+                final List<Object> prepared = batches.poll().get();
+                for (int i = 0; i < targets.size(); i++) {
+                    addLoaded(targets.get(i), prepared.get(i));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new UnexpectedException(GenericErrorCode.GEN_001, e.getCause());
+        } finally {
+            executor.shutdownNow();
+            targets.forEach(QuestionLoadTarget::finishLoading);
+        }
+    }
+
+    private List<Object> prepare(final int firstId, final int lastId) {
+        final List<Object[]> rows = transactionTemplate.execute(status -> userDao.getQuestionContents(firstId, lastId));
+        final List<Object> prepared = new ArrayList<>(targets.size());
+        for (final QuestionLoadTarget<?> target : targets) {
+            prepared.add(target.prepare(rows));
+        }
+        return prepared;
+    }
+
+    // The prepared range was returned by the same target, so it is of the type the target adds.
+    @SuppressWarnings("unchecked")
+    private static <T> void addLoaded(final QuestionLoadTarget<T> target, final Object prepared) {
+        target.addLoaded((T) prepared);
+    }
+}
@@ -0,0 +1,335 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.service.common.AfterCommit;
+import com.upgrad.quora.service.common.PostingList;
+import com.upgrad.quora.service.common.Tokenizer;
+import com.upgrad.quora.service.dto.QuestionSearchResult;
+import com.upgrad.quora.service.entity.QuestionEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * This class keeps an inverted index of the content of every question in memory, so the questions can be searched
+ * without querying the database.
+ * Every word maps to the postings of the questions holding it, and the questions found are ranked with BM25.
+ * The index is loaded from the question table at startup, by several threads each reading a range of question ids,
+ * and is kept up to date when a question is created, edited or deleted.
+ * The index is held in memory, so every instance of the application only sees the changes it made itself until it is
+ * restarted.
+ */
+@Component
+public class QuestionSearchIndex implements QuestionLoadTarget<List<QuestionSearchIndex.IndexedQuestion>> {
+
+    // The usual BM25 parameters, for the saturation of the word frequency and the normalization of the content length.
+    private static final double K1 = 1.2;
+
+    private static final double B = 0.75;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, PostingList> postings = new HashMap<>();
+
+    // The questions are stored at their id, as the ids are taken from a sequence and have few gaps.
+    private String[] uuids = new String[INITIAL_CAPACITY];
+
+    private String[] contents = new String[INITIAL_CAPACITY];
+
+    private int[] lengths = new int[INITIAL_CAPACITY];
+
+    private int questionCount;
+
+    private long totalLength;
+
+    // The questions deleted while the index is being loaded, so that the loader does not add them back.
+    private Set<Integer> deletedWhileLoading;
+
+    // The index is changed only once the question is committed, so it never holds a question which was rolled back.
+    public void questionCreated(final QuestionEntity questionEntity) {
+        put(questionEntity);
+    }
+
+    public void questionEdited(final QuestionEntity questionEntity) {
+        put(questionEntity);
+    }
+
+    public void questionsDeleted(final Collection<Integer> questionIds) {
+        AfterCommit.run(() -> remove(questionIds));
+    }
+
+    /**
+     * @param query - words to search the questions by
+     * @param limit - maximum number of questions to return
+     * @return - the questions holding any of the words, best ranked first
+     */
+    public List<QuestionSearchResult> search(final String query, final int limit) {
+        final List<String> words = new ArrayList<>(new LinkedHashSet<>(Tokenizer.tokenize(query)));
+        lock.readLock().lock();
+        try {
+            if (questionCount == 0) {
+                return Collections.emptyList();
+            }
+            final PostingList.Cursor[] cursors = new PostingList.Cursor[words.size()];
+            final double[] weights = new double[words.size()];
+            final boolean[] remaining = new boolean[words.size()];
+            for (int i = 0; i < words.size(); i++) {
+                final PostingList wordPostings = postings.get(words.get(i));
+                if (wordPostings != null) {
+                    cursors[i] = wordPostings.cursor();
+                    weights[i] = Math.log(1 + (questionCount - wordPostings.size() + 0.5) / (wordPostings.size() + 0.5));
+                    remaining[i] = cursors[i].next();
+                }
+            }
+            return rank(cursors, weights, remaining, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /*
+     * This method scores the questions one at a time, moving through all the postings of the words at once in the
+     * order of the question ids, and keeps only the best ranked questions. No score is stored for the other questions,
+     * so a search for common words does not allocate memory for every question holding them.
+     */
+    private List<QuestionSearchResult> rank(final PostingList.Cursor[] cursors, final double[] weights, final boolean[] remaining, final int limit) {
+        final double averageLength = (double) totalLength / questionCount;
+        final PriorityQueue<Hit> best = new PriorityQueue<>(limit + 1);
+        while (true) {
+            int id = Integer.MAX_VALUE;
+            for (int i = 0; i < cursors.length; i++) {
+                if (remaining[i] && cursors[i].id() < id) {
+                    id = cursors[i].id();
+                }
+            }
+            if (id == Integer.MAX_VALUE) {
+                break;
+            }
+            final double lengthNorm = K1 * (1 - B + B * lengths[id] / averageLength);
+            double score = 0;
+            for (int i = 0; i < cursors.length; i++) {
+                if (remaining[i] && cursors[i].id() == id) {
+                    final int frequency = cursors[i].frequency();
+                    score += weights[i] * frequency * (K1 + 1) / (frequency + lengthNorm);
+                    remaining[i] = cursors[i].next();
+                }
+            }
+            // The head of the heap is the worst of the best hits, a hit ranked above it by score and then by id replaces it.
+            final Hit hit = new Hit(id, score);
+            if (best.size() < limit) {
+                best.add(hit);
+            } else if (hit.compareTo(best.peek()) > 0) {
+                best.poll();
+                best.add(hit);
+            }
+        }
+        final List<QuestionSearchResult> results = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            final Hit hit = best.poll();
+            results.add(new QuestionSearchResult(uuids[hit.id], contents[hit.id], hit.score));
+        }
+        Collections.reverse(results);
+        return results;
+    }
+
+    // The questions are split into words on the loader threads.
+    @Override
+    public List<IndexedQuestion> prepare(final List<Object[]> rows) {
+        final List<IndexedQuestion> questions = new ArrayList<>(rows.size());
+        for (final Object[] row : rows) {
+            questions.add(new IndexedQuestion((Integer) row[0], (String) row[1], (String) row[2]));
+        }
+        return questions;
+    }
+
+    // The ranges are added in the order of their ids, so the postings are only ever appended to.
+    // A question which was already added or deleted while its range was being read is left as it is.
+    @Override
+    public void addLoaded(final List<IndexedQuestion> questions) {
+        lock.writeLock().lock();
+        try {
+            for (final IndexedQuestion question : questions) {
+                if (!deletedWhileLoading.contains(question.id) && !contains(question.id)) {
+                    add(question);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void put(final QuestionEntity questionEntity) {
+        final IndexedQuestion question = new IndexedQuestion(questionEntity.getId(), questionEntity.getUuid(), questionEntity.getContent());
+        AfterCommit.run(() -> put(question));
+    }
+
+    private void put(final IndexedQuestion question) {
+        lock.writeLock().lock();
+        try {
+            delete(question.id);
+            add(question);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // The postings of every word are packed again only once for all the questions, however many of them hold the word.
+    private void remove(final Collection<Integer> ids) {
+        lock.writeLock().lock();
+        try {
+            final BitSet removed = new BitSet();
+            final Set<String> words = new HashSet<>();
+            for (final int id : ids) {
+                if (contains(id)) {
+                    removed.set(id);
+                    words.addAll(Tokenizer.tokenize(contents[id]));
+                    forget(id);
+                }
+                if (deletedWhileLoading != null) {
+                    deletedWhileLoading.add(id);
+                }
+            }
+            for (final String word : words) {
+                final PostingList wordPostings = postings.get(word);
+                if (wordPostings != null && wordPostings.removeAll(removed) && wordPostings.size() == 0) {
+                    postings.remove(word);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void startLoading() {
+        setDeletedWhileLoading(new HashSet<>());
+    }
+
+    @Override
+    public void finishLoading() {
+        setDeletedWhileLoading(null);
+    }
+
+    private void setDeletedWhileLoading(final Set<Integer> deletedIds) {
+        lock.writeLock().lock();
+        try {
+            deletedWhileLoading = deletedIds;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean contains(final int id) {
+        return id < uuids.length && uuids[id] != null;
+    }
+
+    private void add(final IndexedQuestion question) {
+        ensureCapacity(question.id);
+        for (int i = 0; i < question.words.length; i++) {
+            postings.computeIfAbsent(question.words[i], word -> new PostingList()).add(question.id, question.frequencies[i]);
+        }
+        uuids[question.id] = question.uuid;
+        contents[question.id] = question.content;
+        lengths[question.id] = question.length;
+        questionCount++;
+        totalLength += question.length;
+    }
+
+    // The postings of the question are found from the words of its stored content.
+    private void delete(final int id) {
+        if (!contains(id)) {
+            return;
+        }
+        for (final String word : new HashSet<>(Tokenizer.tokenize(contents[id]))) {
+            final PostingList wordPostings = postings.get(word);
+            if (wordPostings != null && wordPostings.remove(id) && wordPostings.size() == 0) {
+                postings.remove(word);
+            }
+        }
+        forget(id);
+    }
+
+    private void forget(final int id) {
+        questionCount--;
+        totalLength -= lengths[id];
+        uuids[id] = null;
+        contents[id] = null;
+        lengths[id] = 0;
+    }
+
+    private void ensureCapacity(final int id) {
+        if (id >= uuids.length) {
+            final int capacity = (int) Math.min(Math.max((long) id + 1, uuids.length * 2L), Integer.MAX_VALUE);
+            uuids = Arrays.copyOf(uuids, capacity);
+            contents = Arrays.copyOf(contents, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+        }
+    }
+
+    /**
+     * This class holds a question split into its distinct words, each with the number of times it appears.
+     * It is built outside of the lock, so the loader threads and the requests do not wait on each other to split words.
+     */
+    static final class IndexedQuestion {
+
+        private final int id;
+
+        private final String uuid;
+
+        private final String content;
+
+        private final String[] words;
+
+        private final int[] frequencies;
+
+        private final int length;
+
+        private IndexedQuestion(final int id, final String uuid, final String content) {
+            final List<String> tokens = Tokenizer.tokenize(content);
+            final Map<String, Integer> counts = new LinkedHashMap<>();
+            for (final String token : tokens) {
+                counts.merge(token, 1, Integer::sum);
+            }
+            this.id = id;
+            this.uuid = uuid;
+            this.content = content;
+            this.words = counts.keySet().toArray(new String[0]);
+            this.frequencies = counts.values().stream().mapToInt(Integer::intValue).toArray();
+            this.length = tokens.size();
+        }
+    }
+
+    // On equal scores, the newer question is ranked first.
+    private static final class Hit implements Comparable<Hit> {
+
+        private final int id;
+
+        private final double score;
+
+        private Hit(final int id, final double score) {
+            this.id = id;
+            this.score = score;
+        }
+
+        @Override
+        public int compareTo(final Hit other) {
+            final int byScore = Double.compare(score, other.score);
+            return byScore != 0 ? byScore : Integer.compare(id, other.id);
+        }
+    }
+}
@@ -0,0 +1,378 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.service.common.AfterCommit;
+import com.upgrad.quora.service.common.Tokenizer;
+import com.upgrad.quora.service.dto.QuestionSuggestion;
+import com.upgrad.quora.service.entity.QuestionEntity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * This class suggests the existing questions which start with the text a user is typing, so that the user can find
+ * the question before posting it again.
+ * The questions are kept in memory in a trie over the bytes of their normalized content, in which every chain of
+ * nodes with a single child is merged into one node, so a question mostly adds a single node. Every node keeps the
+ * best suggestions of all the questions below it, so a suggestion request only walks down the typed text and never
+ * visits the questions themselves. The newest questions are suggested first.
+ * The trie is loaded from the question table at startup and is kept up to date when a question is created, edited or
+ * deleted. It is held in memory, so every instance of the application only sees the changes it made itself.
+ */
+@Component
+public class QuestionSuggestionIndex implements QuestionLoadTarget<List<QuestionSuggestion>> {
+
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private static final QuestionSuggestion[] NO_SUGGESTIONS = new QuestionSuggestion[0];
+
+    private static final Comparator<QuestionSuggestion> NEWEST_FIRST = Comparator.comparing(QuestionSuggestion::getId).reversed();
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final int suggestionsPerPrefix;
+
+    // Only the start of a question is indexed, so a long question does not take more memory than a short one.
+    private final int maxKeyLength;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Node root = new Node(new byte[0]);
+
+    // The questions are stored at their id, as the ids are taken from a sequence and have few gaps.
+    private QuestionSuggestion[] suggestions = new QuestionSuggestion[INITIAL_CAPACITY];
+
+    // The questions deleted while the trie is being loaded, so that the loader does not add them back.
+    private Set<Integer> deletedWhileLoading;
+
+    public QuestionSuggestionIndex(@Value("${quora.suggestions.per-prefix:10}") final int suggestionsPerPrefix,
+                                   @Value("${quora.suggestions.max-key-length:64}") final int maxKeyLength) {
+        this.suggestionsPerPrefix = suggestionsPerPrefix;
+        this.maxKeyLength = maxKeyLength;
+    }
+
+    // The trie is changed only once the question is committed, so it never suggests a question which was rolled back.
+    public void questionCreated(final QuestionEntity questionEntity) {
+        put(questionEntity);
+    }
+
+    public void questionEdited(final QuestionEntity questionEntity) {
+        put(questionEntity);
+    }
+
+    public void questionsDeleted(final Collection<Integer> questionIds) {
+        AfterCommit.run(() -> questionIds.forEach(this::remove));
+    }
+
+    /**
+     * @param prefix - text the user has typed so far
+     * @param limit  - maximum number of suggestions, at most the number of suggestions kept per prefix
+     * @return - the newest questions starting with the text, in any case and whatever the punctuation
+     */
+    public List<QuestionSuggestion> suggest(final String prefix, final int limit) {
+        final byte[] key = getPrefixKey(prefix);
+        if (key.length == 0) {
+            return Collections.emptyList();
+        }
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            int matched = 0;
+            while (matched < key.length) {
+                node = node.child(key[matched]);
+                if (node == null) {
+                    return Collections.emptyList();
+                }
+                final int length = Math.min(node.label.length, key.length - matched);
+                if (commonPrefixLength(node.label, key, matched) < length) {
+                    return Collections.emptyList();
+                }
+                matched += length;
+            }
+            return Collections.unmodifiableList(Arrays.asList(node.best).subList(0, Math.min(limit, node.best.length)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void startLoading() {
+        setDeletedWhileLoading(new HashSet<>());
+    }
+
+    @Override
+    public List<QuestionSuggestion> prepare(final List<Object[]> rows) {
+        final List<QuestionSuggestion> questions = new ArrayList<>(rows.size());
+        for (final Object[] row : rows) {
+            questions.add(new QuestionSuggestion((Integer) row[0], (String) row[1], (String) row[2]));
+        }
+        return questions;
+    }
+
+    // A question which was already added or deleted while its range was being read is left as it is.
+    @Override
+    public void addLoaded(final List<QuestionSuggestion> questions) {
+        lock.writeLock().lock();
+        try {
+            for (final QuestionSuggestion question : questions) {
+                if (!deletedWhileLoading.contains(question.getId()) && get(question.getId()) == null) {
+                    add(question);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void finishLoading() {
+        setDeletedWhileLoading(null);
+    }
+
+    private void put(final QuestionEntity questionEntity) {
+        final QuestionSuggestion question = new QuestionSuggestion(questionEntity.getId(), questionEntity.getUuid(), questionEntity.getContent());
+        AfterCommit.run(() -> {
+            lock.writeLock().lock();
+            try {
+                delete(question.getId());
+                add(question);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    private void remove(final int id) {
+        lock.writeLock().lock();
+        try {
+            delete(id);
+            if (deletedWhileLoading != null) {
+                deletedWhileLoading.add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void setDeletedWhileLoading(final Set<Integer> deletedIds) {
+        lock.writeLock().lock();
+        try {
+            deletedWhileLoading = deletedIds;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private QuestionSuggestion get(final int id) {
+        return id < suggestions.length ? suggestions[id] : null;
+    }
+
+    /*
+     * This method adds the question at the node of its key, splitting the node whose label holds the end of the key.
+     * The question is then offered to the best suggestions of every node from the root down to that node.
+     */
+    private void add(final QuestionSuggestion question) {
+        final byte[] key = getKey(question.getContent());
+        final Deque<Node> path = new ArrayDeque<>();
+        Node node = root;
+        path.push(node);
+        int matched = 0;
+        while (matched < key.length) {
+            Node child = node.child(key[matched]);
+            if (child == null) {
+                child = new Node(Arrays.copyOfRange(key, matched, key.length));
+                node.addChild(child);
+                matched = key.length;
+            } else {
+                final int common = commonPrefixLength(child.label, key, matched);
+                if (common < child.label.length) {
+                    child = node.split(child, common);
+                }
+                matched += common;
+            }
+            node = child;
+            path.push(node);
+        }
+        node.questions = append(node.questions, question);
+        if (question.getId() >= suggestions.length) {
+            suggestions = Arrays.copyOf(suggestions, (int) Math.min(Math.max((long) question.getId() + 1, suggestions.length * 2L), Integer.MAX_VALUE));
+        }
+        suggestions[question.getId()] = question;
+        for (final Node pathNode : path) {
+            pathNode.offer(question, suggestionsPerPrefix);
+        }
+    }
+
+    /*
+     * This method removes the question from the node of its key, and updates the best suggestions up to the root.
+     * A node left without questions and children is removed, and one left with a single child is merged with it.
+     */
+    private void delete(final int id) {
+        final QuestionSuggestion question = get(id);
+        if (question == null) {
+            return;
+        }
+        suggestions[id] = null;
+        final byte[] key = getKey(question.getContent());
+        final Deque<Node> path = new ArrayDeque<>();
+        Node node = root;
+        path.push(node);
+        for (int matched = 0; matched < key.length; matched += node.label.length) {
+            node = node.child(key[matched]);
+            path.push(node);
+        }
+        node.questions = without(node.questions, question);
+        Node child = null;
+        for (final Node pathNode : path) {
+            if (child != null) {
+                if (child.questions.length == 0 && child.children.length == 0) {
+                    pathNode.removeChild(child);
+                } else if (child.questions.length == 0 && child.children.length == 1) {
+                    child.mergeWithChild();
+                }
+            }
+            pathNode.updateBest(suggestionsPerPrefix);
+            child = pathNode;
+        }
+    }
+
+    private byte[] getKey(final String content) {
+        return truncate(Tokenizer.normalize(content).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // A space typed after the last word is kept, so that the word is no longer matched as the start of a longer word.
+    private byte[] getPrefixKey(final String prefix) {
+        String key = Tokenizer.normalize(prefix);
+        if (!key.isEmpty() && !Character.isLetterOrDigit(prefix.charAt(prefix.length() - 1))) {
+            key += " ";
+        }
+        return truncate(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // A key may be cut in the middle of a character, which still matches as the typed text is cut at the same byte.
+    private byte[] truncate(final byte[] key) {
+        return key.length > maxKeyLength ? Arrays.copyOf(key, maxKeyLength) : key;
+    }
+
+    private static int commonPrefixLength(final byte[] label, final byte[] key, final int offset) {
+        int length = 0;
+        while (length < label.length && offset + length < key.length && label[length] == key[offset + length]) {
+            length++;
+        }
+        return length;
+    }
+
+    private static QuestionSuggestion[] append(final QuestionSuggestion[] questions, final QuestionSuggestion question) {
+        final QuestionSuggestion[] appended = Arrays.copyOf(questions, questions.length + 1);
+        appended[questions.length] = question;
+        return appended;
+    }
+
+    private static QuestionSuggestion[] without(final QuestionSuggestion[] questions, final QuestionSuggestion question) {
+        return Arrays.stream(questions).filter(q -> q != question).toArray(QuestionSuggestion[]::new);
+    }
+
+    /**
+     * This class is a node of the trie. The children are stored in a plain array, as a node has few of them and they
+     * are told apart by the first byte of their label.
+     * The arrays of suggestions are replaced rather than changed in place, so a leaf shares one array for its questions
+     * and its best suggestions, and a request can return them without copying.
+     */
+    private static final class Node {
+
+        // UTF-8 bytes of the key between the parent and this node.
+        private byte[] label;
+
+        private Node[] children = NO_CHILDREN;
+
+        // Questions whose key ends at this node.
+        private QuestionSuggestion[] questions = NO_SUGGESTIONS;
+
+        // Best suggestions among the questions of this node and all the nodes below it, best first.
+        private QuestionSuggestion[] best = NO_SUGGESTIONS;
+
+        private Node(final byte[] label) {
+            this.label = label;
+        }
+
+        private Node child(final byte first) {
+            for (final Node child : children) {
+                if (child.label[0] == first) {
+                    return child;
+                }
+            }
+            return null;
+        }
+
+        private void addChild(final Node child) {
+            children = Arrays.copyOf(children, children.length + 1);
+            children[children.length - 1] = child;
+        }
+
+        private void removeChild(final Node child) {
+            children = Arrays.stream(children).filter(c -> c != child).toArray(Node[]::new);
+        }
+
+        // This method puts a new node holding the first bytes of the child's label between this node and the child.
+        private Node split(final Node child, final int length) {
+            final Node middle = new Node(Arrays.copyOf(child.label, length));
+            child.label = Arrays.copyOfRange(child.label, length, child.label.length);
+            middle.children = new Node[]{child};
+            middle.best = child.best;
+            children[Arrays.asList(children).indexOf(child)] = middle;
+            return middle;
+        }
+
+        private void mergeWithChild() {
+            final Node child = children[0];
+            final byte[] merged = Arrays.copyOf(label, label.length + child.label.length);
+            System.arraycopy(child.label, 0, merged, label.length, child.label.length);
+            label = merged;
+            children = child.children;
+            questions = child.questions;
+            best = child.best;
+        }
+
+        // This method adds the question to the best suggestions if it ranks among them.
+        private void offer(final QuestionSuggestion question, final int size) {
+            int position = best.length;
+            while (position > 0 && NEWEST_FIRST.compare(question, best[position - 1]) < 0) {
+                position--;
+            }
+            if (position >= size) {
+                return;
+            }
+            final QuestionSuggestion[] offered = new QuestionSuggestion[Math.min(size, best.length + 1)];
+            System.arraycopy(best, 0, offered, 0, position);
+            offered[position] = question;
+            System.arraycopy(best, position, offered, position + 1, offered.length - position - 1);
+            setBest(offered);
+        }
+
+        // The best suggestions of a node are the best among its own questions and the best suggestions of its children.
+        private void updateBest(final int size) {
+            final List<QuestionSuggestion> candidates = new ArrayList<>(Arrays.asList(questions));
+            for (final Node child : children) {
+                candidates.addAll(Arrays.asList(child.best));
+            }
+            candidates.sort(NEWEST_FIRST);
+            setBest(candidates.subList(0, Math.min(size, candidates.size())).toArray(NO_SUGGESTIONS));
+        }
+
+        private void setBest(final QuestionSuggestion[] suggestions) {
+            best = Arrays.equals(suggestions, questions) ? questions : suggestions;
+        }
+    }
+}
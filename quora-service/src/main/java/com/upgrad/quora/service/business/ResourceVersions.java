@@ -0,0 +1,84 @@
+package com.upgrad.quora.service.business;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.upgrad.quora.service.common.CacheInvalidation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class keeps a version of each resource the clients poll, from which the ETag of the resource is built, so that
+ * a request whose If-None-Match header still matches can be answered without reading the resource at all.
+ * <p>
+ * The versions are taken from a single counter: a resource gets a new version whenever it is changed, and whenever
+ * its version is not known any more, so an ETag is never handed out again for a different state of the resource.
+ * The versions are held in memory and every instance of the application only knows about its own changes, so each
+ * version also expires after a fixed time, after which the clients fetch the resource once more.
+ * The ETags hold an id of the running instance, so the ETags of two instances never match.
+ */
+@Component
+public class ResourceVersions {
+
+    private static final String QUESTIONS = "questions";
+
+    private static final String ANSWERS = "answers:";
+
+    private static final String USER = "user:";
+
+    private final String instanceId = UUID.randomUUID().toString().substring(0, 8);
+
+    private final AtomicLong counter = new AtomicLong();
+
+    private final Cache<String, Long> versions;
+
+    public ResourceVersions(@Value("${quora.etag.maximum-size:100000}") final long maximumSize,
+                            @Value("${quora.etag.expire-after-write-seconds:600}") final long expireAfterWriteSeconds) {
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWriteSeconds, TimeUnit.SECONDS)
+                .build();
+    }
+
+    // The ETag must be read before the resource, so that a change made in between gives the next request a new ETag.
+    public String getQuestionsETag() {
+        return getETag(QUESTIONS);
+    }
+
+    public String getAnswersETag(final String questionId) {
+        return getETag(ANSWERS + questionId);
+    }
+
+    public String getUserETag(final String userId) {
+        return getETag(USER + userId);
+    }
+
+    public void questionsChanged() {
+        changed(QUESTIONS);
+    }
+
+    public void answersChanged(final String questionId) {
+        changed(ANSWERS + questionId);
+    }
+
+    // This method changes the versions of all the resources the deleted user had a part in.
+    public void userDeleted(final String userId, final Collection<String> questionIds, final Collection<String> answeredQuestionIds) {
+        changed(USER + userId);
+        changed(QUESTIONS);
+        questionIds.forEach(this::answersChanged);
+        answeredQuestionIds.forEach(this::answersChanged);
+    }
+
+    private String getETag(final String resource) {
+        return instanceId + "-" + versions.get(resource, key -> counter.incrementAndGet());
+    }
+
+    // The version is changed once more after the surrounding transaction commits, for the same reason as the caches.
+    private void changed(final String resource) {
+        CacheInvalidation.runNowAndAfterCommit(() -> versions.put(resource, counter.incrementAndGet()));
+    }
+}
@@ -0,0 +1,52 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.service.common.AccessTokenDigest;
+import com.upgrad.quora.service.dao.UserDao;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * This class computes the digest of the access tokens stored before the digest column was added.
+ * The tokens are processed in small batches, each in its own transaction, so the user_auth table is never locked
+ * for long. A token which is not found by its digest is also looked up by its full value, since an older instance of
+ * the application may still store tokens without a digest.
+ */
+@Component
+public class UserAuthTokenDigestBackfill {
+
+    @Autowired
+    private UserDao userDao;
+
+    @Value("${quora.auth.digest-backfill.batch-size:500}")
+    private int batchSize;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public UserAuthTokenDigestBackfill(final PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // The job keeps running after the backfill is complete, to pick up the tokens stored by an older instance of the application.
+    @Scheduled(initialDelayString = "${quora.auth.digest-backfill.initial-delay-millis:10000}",
+            fixedDelayString = "${quora.auth.digest-backfill.interval-millis:60000}")
+    public void backfill() {
+        int updated;
+        do {
+            updated = transactionTemplate.execute(status -> backfillBatch());
+        } while (updated == batchSize);
+    }
+
+    private int backfillBatch() {
+        final List<Object[]> tokens = userDao.getUserAuthTokensWithoutDigest(batchSize);
+        for (final Object[] token : tokens) {
+            userDao.setAccessTokenDigest((Integer) token[0], AccessTokenDigest.of((String) token[1]));
+        }
+        return tokens.size();
+    }
+}
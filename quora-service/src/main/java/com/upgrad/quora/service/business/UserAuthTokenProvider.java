@@ -0,0 +1,140 @@
+package com.upgrad.quora.service.business;
+
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.Claim;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.upgrad.quora.service.common.AccessTokenDigest;
+import com.upgrad.quora.service.common.CacheInvalidation;
+import com.upgrad.quora.service.common.CacheMetrics;
+import com.upgrad.quora.service.dao.UserDao;
+import com.upgrad.quora.service.entity.UserAuthTokenEntity;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class provides the user's authorization token for an access token sent with a request.
+ * Recently validated tokens are kept in a bounded in-memory cache so that the authenticated endpoints do not query
+ * the user_auth table on every request. A cached token is invalidated when the user signs out or is deleted, and
+ * every entry expires after a fixed time so that the cache never drifts far from the database.
+ * <p>
+ * When the stateless verification is enabled, the access token is verified as a JWT signed with the server-side key
+ * ring instead, and neither the cache nor the database is consulted.
+ */
+@Component
+public class UserAuthTokenProvider implements MeterBinder {
+
+    private static final String CACHE_NAME = "userAuthTokens";
+
+    @Autowired
+    private UserDao userDao;
+
+    @Autowired
+    private JwtTokenVerifier jwtTokenVerifier;
+
+    @Value("${quora.auth.stateless:false}")
+    private boolean stateless;
+
+    private final Cache<String, UserAuthTokenEntity> cache;
+
+    public UserAuthTokenProvider(@Value("${quora.auth.token-cache.maximum-size:10000}") final long maximumSize,
+                                 @Value("${quora.auth.token-cache.expire-after-write-seconds:300}") final long expireAfterWriteSeconds) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWriteSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * @param accessToken - access token sent in the authorization header
+     * @return - the token details, or null if the access token was never issued
+     */
+    public UserAuthTokenEntity getUserAuthToken(final String accessToken) {
+        if (stateless) {
+            return getVerifiedUserAuthToken(accessToken);
+        }
+        // Unknown tokens are not cached, so a token issued right after a failed lookup is found on the next request.
+        return cache.get(accessToken, this::findUserAuthToken);
+    }
+
+    /**
+     * This method looks the access token up in the database, bypassing the cache.
+     * The token is looked up by its digest, and else by its full value among the stored tokens which have no digest yet.
+     * An older instance of the application may still store tokens without a digest during a rolling deploy, so the
+     * second lookup is always made; it only searches the partial index of those tokens, which is empty once backfilled.
+     *
+     * @param accessToken - access token sent in the authorization header
+     * @return - the token details, or null if the access token was never issued
+     */
+    public UserAuthTokenEntity findUserAuthToken(final String accessToken) {
+        final UserAuthTokenEntity userAuthTokenEntity = userDao.getUserAuthTokenByDigest(AccessTokenDigest.of(accessToken));
+        if (userAuthTokenEntity != null) {
+            return userAuthTokenEntity;
+        }
+        return userDao.getUserAuthTokenWithoutDigest(accessToken);
+    }
+
+    // This method removes the access token from the cache and revokes it once the user has signed out.
+    public void invalidate(final String accessToken) {
+        jwtTokenVerifier.revoke(accessToken);
+        CacheInvalidation.runNowAndAfterCommit(() -> cache.invalidate(accessToken));
+    }
+
+    // This method removes and revokes every access token issued to the user, used when the user is deleted.
+    public void invalidateUser(final String userUuid) {
+        jwtTokenVerifier.revokeUser(userUuid);
+        CacheInvalidation.runNowAndAfterCommit(() -> cache.asMap().values().removeIf(token -> userUuid.equals(token.getUuid())));
+    }
+
+    public CacheStats getCacheStats() {
+        return cache.stats();
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        CacheMetrics.monitor(registry, cache, CACHE_NAME);
+    }
+
+    /*
+     * This method builds the token details from the claims of a verified JWT.
+     * A token which fails the verification is treated as never issued, and a revoked token as signed out.
+     * The user is only a reference built from the id claim, so it is not loaded unless one of its fields is read.
+     */
+    private UserAuthTokenEntity getVerifiedUserAuthToken(final String accessToken) {
+        final DecodedJWT token;
+        try {
+            token = jwtTokenVerifier.verify(accessToken);
+        } catch (JWTVerificationException e) {
+            return null;
+        }
+        final Claim userId = token.getClaim(JwtTokenProvider.USER_ID_CLAIM);
+        if (userId.isNull()) {
+            return null;
+        }
+        final UserAuthTokenEntity userAuthTokenEntity = new UserAuthTokenEntity();
+        userAuthTokenEntity.setUser(userDao.getUserReference(userId.asInt()));
+        userAuthTokenEntity.setUuid(token.getAudience().get(0));
+        userAuthTokenEntity.setAccessToken(accessToken);
+        userAuthTokenEntity.setLoginAt(toZonedDateTime(token.getIssuedAt()));
+        userAuthTokenEntity.setExpiresAt(toZonedDateTime(token.getExpiresAt()));
+        if (jwtTokenVerifier.isRevoked(token)) {
+            userAuthTokenEntity.setLogoutAt(ZonedDateTime.now());
+        }
+        return userAuthTokenEntity;
+    }
+
+    private static ZonedDateTime toZonedDateTime(final Date date) {
+        return ZonedDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault());
+    }
+}
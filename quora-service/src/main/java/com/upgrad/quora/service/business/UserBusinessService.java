@@ -20,6 +20,10 @@ public class UserBusinessService {
     private UserDao userDao;
     @Autowired
     private PasswordCryptographyProvider passwordCryptographyProvider;
+    @Autowired
+    private UserAuthTokenProvider userAuthTokenProvider;
+    @Autowired
+    private JwtKeyRing jwtKeyRing;
 
     /*
      * The functionality of Signup where the Salt and Password entered by the user
@@ -48,24 +52,25 @@ public class UserBusinessService {
      * This method call is made on the signin checkpoint.
      * The concerned user is provided with an authorization token if the signin is successful.
      * The user is signed in only if the password entered matches the password from the database after encryption.
+     * A deleted user cannot sign in, even while its questions and answers are still being purged.
      * The session timeout for the generated token also starts as soon as the login is successful.
      */
     @Transactional(propagation = Propagation.REQUIRED)
     public UserAuthTokenEntity signIn(final String username, final String password) throws AuthenticationFailedException {
 
         UserEntity userEntity = userDao.getUserByUsername(username);
-        if (userEntity == null) {
+        if (userEntity == null || userEntity.getDeletedAt() != null) {
             throw new AuthenticationFailedException("ATH-001", "This username does not exist");
         }
         final String encryptedPassword = passwordCryptographyProvider.encrypt(password, userEntity.getSalt());
         if (encryptedPassword.equals(userEntity.getPassword())) {
-            JwtTokenProvider jwtTokenProvider = new JwtTokenProvider(encryptedPassword);
+            JwtTokenProvider jwtTokenProvider = jwtKeyRing.getTokenProvider();
             UserAuthTokenEntity userAuthToken = new UserAuthTokenEntity();
             userAuthToken.setUser(userEntity);
             userAuthToken.setUuid(userEntity.getUuid());
             final ZonedDateTime now = ZonedDateTime.now();
-            final ZonedDateTime expiresAt = now.plusHours(8);
-            userAuthToken.setAccessToken(jwtTokenProvider.generateToken(userEntity.getUuid(), now, expiresAt));
+            final ZonedDateTime expiresAt = now.plus(JwtTokenProvider.TOKEN_LIFETIME);
+            userAuthToken.setAccessToken(jwtTokenProvider.generateToken(userEntity.getUuid(), userEntity.getId(), now, expiresAt));
             userAuthToken.setLoginAt(now);
             userAuthToken.setExpiresAt(expiresAt);
 
@@ -85,13 +90,14 @@ public class UserBusinessService {
      */
     @Transactional(propagation = Propagation.REQUIRED)
     public UserAuthTokenEntity getUserAuthToken(final String authorizationToken) throws SignOutRestrictedException {
-        UserAuthTokenEntity userAuthTokenEntity = userDao.getUserAuthToken(authorizationToken);
+        UserAuthTokenEntity userAuthTokenEntity = userAuthTokenProvider.findUserAuthToken(authorizationToken);
         if (userAuthTokenEntity == null) {
             throw new SignOutRestrictedException("SGR-001", "User is not Signed in");
         }
         final ZonedDateTime now = ZonedDateTime.now();
         userAuthTokenEntity.setLogoutAt(now);
         userDao.updateUserAuthToken(userAuthTokenEntity);
+        userAuthTokenProvider.invalidate(authorizationToken);
         return userAuthTokenEntity;
     }
 
@@ -0,0 +1,219 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.service.common.AfterCommit;
+import com.upgrad.quora.service.common.CacheInvalidation;
+import com.upgrad.quora.service.dao.UserDao;
+import com.upgrad.quora.service.dto.UserDeletion;
+import com.upgrad.quora.service.entity.UserEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * This class purges the questions and answers of the deleted users in the background, so that deleting a prolific user
+ * neither loads its rows into memory nor holds locks on the tables for long.
+ * The rows are deleted in batches, each by a single statement in its own transaction: first the answers of the user,
+ * then the answers posted for the questions of the user, then its questions, and last the user itself. The caches and
+ * the in-memory structures built from the questions are updated for every batch once it is committed.
+ * <p>
+ * The users are purged one at a time on a single thread. A purge which was cut short by a restart or failed is started
+ * again by a regular check for the deleted users still in the database, which every instance of the application runs.
+ * An instance only purges a user once it has claimed the purge in the row of the user, and renews its claim in every
+ * batch, so two instances never purge the same user at once. The claim of an instance stopped during a purge expires.
+ */
+@Component
+public class UserPurge {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(UserPurge.class);
+
+    @Autowired
+    private UserDao userDao;
+    @Autowired
+    private QuestionCache questionCache;
+    @Autowired
+    private ResourceVersions resourceVersions;
+    @Autowired
+    private QuestionSearchIndex questionSearchIndex;
+    @Autowired
+    private QuestionSuggestionIndex questionSuggestionIndex;
+    @Autowired
+    private QuestionDuplicateIndex questionDuplicateIndex;
+    @Autowired
+    private HotQuestionRanking hotQuestionRanking;
+
+    @Value("${quora.user-deletion.batch-size:1000}")
+    private int batchSize;
+
+    // How long the progress of a finished purge can still be read.
+    @Value("${quora.user-deletion.retention-minutes:60}")
+    private long retentionMinutes;
+
+    // How long the claim of an instance on a purge lasts without being renewed, far longer than any batch.
+    @Value("${quora.user-deletion.claim-timeout-seconds:300}")
+    private long claimTimeoutSeconds;
+
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    // Key is the uuid of the deleted user, value is the progress of its purge.
+    private final ConcurrentMap<String, UserDeletion> deletions = new ConcurrentHashMap<>();
+
+    public UserPurge(final PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // The user is purged once the transaction which marked it deleted commits.
+    public void userDeleted(final UserEntity userEntity) {
+        final Integer id = userEntity.getId();
+        final String uuid = userEntity.getUuid();
+        AfterCommit.run(() -> submit(id, uuid));
+    }
+
+    /**
+     * @param userId - uuid of the deleted user
+     * @return - the progress of the purge of the user, or null if the user was not deleted or was purged a while ago
+     */
+    public UserDeletion getDeletion(final String userId) {
+        final UserDeletion deletion = deletions.get(userId);
+        if (deletion != null) {
+            return deletion;
+        }
+        return userDao.getDeletedUser(userId) == null ? null : new UserDeletion(userId);
+    }
+
+    // This method purges the deleted users which are not being purged, and forgets the purges finished a while ago.
+    @Scheduled(initialDelayString = "${quora.user-deletion.resume-initial-delay-millis:10000}",
+            fixedDelayString = "${quora.user-deletion.resume-interval-millis:60000}")
+    public void resume() {
+        final long forgetBefore = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(retentionMinutes);
+        deletions.values().removeIf(deletion -> deletion.isFinished() && deletion.getFinishedAtMillis() < forgetBefore);
+        for (final Object[] user : userDao.getDeletedUsers()) {
+            submit((Integer) user[0], (String) user[1]);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // A user is submitted again only if its last purge failed.
+    private void submit(final Integer id, final String uuid) {
+        final UserDeletion current = deletions.get(uuid);
+        if (current != null && current.getStatus() != UserDeletion.Status.FAILED) {
+            return;
+        }
+        final UserDeletion deletion = new UserDeletion(uuid);
+        if (current == null ? deletions.putIfAbsent(uuid, deletion) == null : deletions.replace(uuid, current, deletion)) {
+            executor.execute(() -> purge(id, deletion));
+        }
+    }
+
+    // A user whose purge another instance has claimed is left to it, and checked again by the next resume.
+    private void purge(final Integer id, final UserDeletion deletion) {
+        try {
+            if (!transactionTemplate.execute(status -> userDao.claimUserPurge(id, instanceId, claimTimeoutSeconds))) {
+                deletions.remove(deletion.getUserId(), deletion);
+                return;
+            }
+            deletion.start();
+            long deleted;
+            do {
+                deleted = runBatch(id, () -> deleteAnswersOfUser(id, deletion.getUserId()));
+                deletion.addAnswersDeleted(deleted);
+            } while (deleted > 0);
+            do {
+                deleted = runBatch(id, () -> deleteAnswersToQuestionsOfUser(id));
+                deletion.addAnswersDeleted(deleted);
+            } while (deleted > 0);
+            do {
+                deleted = runBatch(id, () -> deleteQuestionsOfUser(id, deletion.getUserId()));
+                deletion.addQuestionsDeleted(deleted);
+            } while (deleted > 0);
+            runBatch(id, () -> {
+                userDao.purgeUser(id);
+                return 0;
+            });
+            deletion.finish(UserDeletion.Status.COMPLETED);
+        } catch (RuntimeException e) {
+            LOGGER.error("The purge of the deleted user {} failed", deletion.getUserId(), e);
+            deletion.fail(e);
+        }
+    }
+
+    // The claim is renewed first in the transaction of every batch, so a purge whose claim expired and was taken over
+    // by another instance stops before deleting anything more.
+    private long runBatch(final Integer id, final LongSupplier batch) {
+        return transactionTemplate.execute(status -> {
+            if (!userDao.claimUserPurge(id, instanceId, claimTimeoutSeconds)) {
+                throw new IllegalStateException("The claim on the purge was taken over by another instance");
+            }
+            return batch.getAsLong();
+        });
+    }
+
+    // The questions the answers were posted for have changed, so they are removed from the caches.
+    private long deleteAnswersOfUser(final Integer id, final String userUuid) {
+        final List<Object[]> answers = userDao.deleteAnswersOfUser(id, batchSize);
+        final List<Integer> answerRowIds = new ArrayList<>(answers.size());
+        final Set<Integer> questionRowIds = new HashSet<>();
+        final Set<String> questionIds = new HashSet<>();
+        for (final Object[] answer : answers) {
+            answerRowIds.add(((Number) answer[0]).intValue());
+            questionRowIds.add(((Number) answer[1]).intValue());
+            questionIds.add((String) answer[2]);
+        }
+        questionCache.invalidateUser(Collections.emptyList(), questionIds);
+        resourceVersions.userDeleted(userUuid, Collections.emptyList(), questionIds);
+        CacheInvalidation.runNowAndAfterCommit(() -> userDao.evictPurgedRows(questionRowIds, answerRowIds));
+        return answers.size();
+    }
+
+    // The questions are removed from the caches along with their answers once they are deleted themselves.
+    private long deleteAnswersToQuestionsOfUser(final Integer id) {
+        final List<Integer> answerRowIds = new ArrayList<>();
+        userDao.deleteAnswersToQuestionsOfUser(id, batchSize).forEach(answerId -> answerRowIds.add(answerId.intValue()));
+        CacheInvalidation.runNowAndAfterCommit(() -> userDao.evictPurgedRows(Collections.emptyList(), answerRowIds));
+        return answerRowIds.size();
+    }
+
+    private long deleteQuestionsOfUser(final Integer id, final String userUuid) {
+        final List<Object[]> questions = userDao.deleteQuestionsOfUser(id, batchSize);
+        final List<Integer> questionRowIds = new ArrayList<>(questions.size());
+        final List<String> questionIds = new ArrayList<>(questions.size());
+        for (final Object[] question : questions) {
+            questionRowIds.add(((Number) question[0]).intValue());
+            questionIds.add((String) question[1]);
+        }
+        questionCache.invalidateUser(questionIds, Collections.emptyList());
+        resourceVersions.userDeleted(userUuid, questionIds, Collections.emptyList());
+        questionSearchIndex.questionsDeleted(questionRowIds);
+        questionSuggestionIndex.questionsDeleted(questionRowIds);
+        questionDuplicateIndex.questionsDeleted(questionRowIds);
+        hotQuestionRanking.questionsDeleted(questionRowIds);
+        CacheInvalidation.runNowAndAfterCommit(() -> userDao.evictPurgedRows(questionRowIds, Collections.emptyList()));
+        return questions.size();
+    }
+}
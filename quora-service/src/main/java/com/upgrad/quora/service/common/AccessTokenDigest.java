@@ -0,0 +1,25 @@
+package com.upgrad.quora.service.common;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * This class computes the fixed-length digest under which an access token is stored and looked up.
+ * A SHA-256 digest is 32 bytes long whatever the length of the token, which keeps the index on it narrow.
+ */
+public final class AccessTokenDigest {
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private AccessTokenDigest() {
+    }
+
+    public static byte[] of(final String accessToken) {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM).digest(accessToken.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new UnexpectedException(GenericErrorCode.GEN_001, e);
+        }
+    }
+}
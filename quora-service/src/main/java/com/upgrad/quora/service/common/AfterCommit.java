@@ -0,0 +1,27 @@
+package com.upgrad.quora.service.common;
+
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * This class applies a change to an in-memory structure built from the database once the change is committed.
+ */
+public final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    // The change is run right away when there is no surrounding transaction, and never if the transaction rolls back.
+    public static void run(final Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+}
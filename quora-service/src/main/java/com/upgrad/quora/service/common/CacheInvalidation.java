@@ -0,0 +1,57 @@
+package com.upgrad.quora.service.common;
+
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class runs the invalidation of a local cache entry when the data behind it is changed.
+ */
+public final class CacheInvalidation {
+
+    // How long the replicas may take to see a commit, 0 when every read is served by the primary.
+    private static volatile long replicaDelayMillis;
+
+    private static ScheduledExecutorService scheduler;
+
+    private CacheInvalidation() {
+    }
+
+    /*
+     * This method is called when the reads may be served by the replicas of the database.
+     * A read from a replica which has not caught up yet could put the old state back into the cache after the commit,
+     * so the invalidation is run a third time once the replicas are expected to have caught up.
+     */
+    public static synchronized void setReplicaDelay(final long delayMillis) {
+        if (scheduler == null && delayMillis > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "cache-invalidation");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        replicaDelayMillis = delayMillis;
+    }
+
+    /*
+     * The invalidation is run right away and once more after the surrounding transaction commits.
+     * A request that read the data before the commit could otherwise put the old state back into the cache.
+     */
+    public static void runNowAndAfterCommit(final Runnable invalidation) {
+        invalidation.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    invalidation.run();
+                    if (replicaDelayMillis > 0) {
+                        scheduler.schedule(invalidation, replicaDelayMillis, TimeUnit.MILLISECONDS);
+                    }
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.upgrad.quora.service.common;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class registers the metrics of a local cache: its size, hits, misses and evictions, and the time spent loading
+ * the missing entries. The load metrics are added here because the caches are read with a loading function rather than
+ * built as loading caches, and the standard cache metrics only cover the latter.
+ */
+public final class CacheMetrics {
+
+    private CacheMetrics() {
+    }
+
+    public static void monitor(final MeterRegistry registry, final Cache<?, ?> cache, final String cacheName) {
+        CaffeineCacheMetrics.monitor(registry, cache, cacheName);
+        FunctionTimer.builder("cache.load.duration", cache, c -> c.stats().loadCount(), c -> c.stats().totalLoadTime(), TimeUnit.NANOSECONDS)
+                .tags("cache", cacheName)
+                .description("The time spent loading the entries missing from the cache")
+                .register(registry);
+        FunctionCounter.builder("cache.load.failures", cache, c -> c.stats().loadFailureCount())
+                .tags("cache", cacheName)
+                .description("The number of loads which failed or found no value")
+                .register(registry);
+    }
+}
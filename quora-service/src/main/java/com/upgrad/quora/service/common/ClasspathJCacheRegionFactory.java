@@ -0,0 +1,40 @@
+package com.upgrad.quora.service.common;
+
+import org.hibernate.cache.CacheException;
+import org.hibernate.cache.jcache.JCacheRegionFactory;
+
+import javax.cache.CacheManager;
+import javax.cache.spi.CachingProvider;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.Properties;
+
+/**
+ * This class is the region factory of the Hibernate second-level cache.
+ * It is the JCache region factory of Hibernate, which also accepts a configuration file on the classpath, given as
+ * classpath:&lt;path&gt; in hibernate.javax.cache.uri. The JCache region factory of this Hibernate version only
+ * accepts URIs which resolve to a URL on their own.
+ */
+public class ClasspathJCacheRegionFactory extends JCacheRegionFactory {
+
+    private static final String CLASSPATH_PREFIX = "classpath:";
+
+    @Override
+    protected CacheManager getCacheManager(final Properties properties) {
+        final String uri = getProp(properties, CONFIG_URI);
+        if (uri == null || !uri.startsWith(CLASSPATH_PREFIX)) {
+            return super.getCacheManager(properties);
+        }
+        final ClassLoader classLoader = getClass().getClassLoader();
+        final URL resource = classLoader.getResource(uri.substring(CLASSPATH_PREFIX.length()));
+        if (resource == null) {
+            throw new CacheException("The cache configuration " + uri + " was not found");
+        }
+        final CachingProvider cachingProvider = getCachingProvider(properties);
+        try {
+            return cachingProvider.getCacheManager(resource.toURI(), classLoader);
+        } catch (URISyntaxException e) {
+            throw new CacheException(e);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.upgrad.quora.service.common;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class times every public method of the DAOs, as the dao.method timer tagged with the class and the method.
+ * A call which throws is recorded under the exception it threw, so slow failures do not hide among the successes.
+ * The percentiles published for the timer are configured under management.metrics.distribution.
+ * <p>
+ * The timer of a method is looked up once and kept, so a call only costs two reads of the clock and the recording.
+ * The registry is handed over once it is built, which needs the DAOs itself, and the calls made until then are not timed.
+ */
+@Aspect
+@Component
+public class DaoMetrics implements MeterBinder {
+
+    private static final String TIMER_NAME = "dao.method";
+
+    private static final String NO_EXCEPTION = "None";
+
+    private volatile MeterRegistry registry;
+
+    // Key is the method called, value is the timer of its calls which returned normally.
+    private final ConcurrentMap<Method, Timer> timers = new ConcurrentHashMap<>();
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("execution(public * com.upgrad.quora.service.dao..*(..))")
+    public Object time(final ProceedingJoinPoint joinPoint) throws Throwable {
+        final MeterRegistry meterRegistry = registry;
+        if (meterRegistry == null) {
+            return joinPoint.proceed();
+        }
+        final Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        final long start = System.nanoTime();
+        try {
+            final Object result = joinPoint.proceed();
+            Timer timer = timers.get(method);
+            if (timer == null) {
+                timer = timers.computeIfAbsent(method, m -> timer(meterRegistry, m, NO_EXCEPTION));
+            }
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (Throwable e) {
+            timer(meterRegistry, method, e.getClass().getSimpleName()).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
+    private static Timer timer(final MeterRegistry registry, final Method method, final String exception) {
+        return Timer.builder(TIMER_NAME)
+                .tags("class", method.getDeclaringClass().getSimpleName(), "method", method.getName(), "exception", exception)
+                .description("The time spent in a method of a DAO")
+                .register(registry);
+    }
+}
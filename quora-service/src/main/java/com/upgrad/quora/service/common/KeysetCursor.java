@@ -0,0 +1,62 @@
+package com.upgrad.quora.service.common;
+
+import com.upgrad.quora.service.exception.InvalidPaginationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Base64;
+
+/**
+ * This class is the position of a row in a list ordered by date and id, both descending.
+ * The next page of the list starts right after the row, so it is found through the index on (date, id) however deep
+ * the page is, instead of skipping over all the rows before it. The cursor is handed out to the clients as an opaque
+ * string, which they send back unchanged to fetch the next page.
+ */
+public final class KeysetCursor {
+
+    private static final String SEPARATOR = ":";
+
+    private final Instant date;
+
+    private final Integer id;
+
+    public KeysetCursor(final ZonedDateTime date, final Integer id) {
+        this.date = date.toInstant();
+        this.id = id;
+    }
+
+    private KeysetCursor(final Instant date, final Integer id) {
+        this.date = date;
+        this.id = id;
+    }
+
+    public ZonedDateTime getDate() {
+        return ZonedDateTime.ofInstant(date, ZoneId.systemDefault());
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    // The seconds and nanoseconds are kept separately, so the cursor matches the stored timestamp exactly.
+    public String encode() {
+        final String position = date.getEpochSecond() + SEPARATOR + date.getNano() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static KeysetCursor decode(final String cursor) throws InvalidPaginationException {
+        try {
+            final String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(SEPARATOR);
+            if (position.length != 3) {
+                throw new IllegalArgumentException(cursor);
+            }
+            return new KeysetCursor(Instant.ofEpochSecond(Long.parseLong(position[0]), Long.parseLong(position[1])),
+                    Integer.valueOf(position[2]));
+        } catch (IllegalArgumentException | DateTimeException e) {
+            throw new InvalidPaginationException("PAG-001", "Entered cursor is not valid");
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.upgrad.quora.service.common;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * This class holds one page of a list paginated with a {@link KeysetCursor}.
+ * The cursor of the next page is null when this page is the last one.
+ */
+public final class KeysetPage<T> {
+
+    private final List<T> items;
+
+    private final String nextCursor;
+
+    private KeysetPage(final List<T> items, final String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * @param rows     - rows fetched for the page, one more than the page size if the list goes on after the page
+     * @param pageSize - number of rows in a page
+     * @param position - function returning the position of a row in the list
+     * @return - the page, with a cursor pointing after its last row if there are more rows
+     */
+    public static <T> KeysetPage<T> of(final List<T> rows, final int pageSize, final Function<T, KeysetCursor> position) {
+        if (rows.size() <= pageSize) {
+            return new KeysetPage<>(rows, null);
+        }
+        final List<T> items = rows.subList(0, pageSize);
+        return new KeysetPage<>(items, position.apply(items.get(pageSize - 1)).encode());
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -0,0 +1,164 @@
+package com.upgrad.quora.service.common;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.temporal.Temporal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class times every statement run through the data source it wraps, and reports it to the observation of the
+ * current request, see {@link QueryObservation}.
+ * A statement slower than the threshold is logged with its bind parameters and the service method which ran it, and so
+ * is the statement which makes its shape N+1 within a request.
+ * <p>
+ * Only the execution is timed, reading the rows of a result set is not. The bind parameters are kept as they are set,
+ * so a statement costs a few object allocations on top of the call itself.
+ * <p>
+ * The parameters may hold password hashes, salts and access tokens, so only the numbers, booleans, dates and nulls
+ * among them are logged, unless the logger of this class is at DEBUG.
+ */
+public class ObservedDataSource extends DelegatingDataSource {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ObservedDataSource.class);
+
+    private static final String SERVICE_PACKAGE = "com.upgrad.quora.service.business.";
+
+    private final long slowNanos;
+
+    public ObservedDataSource(final DataSource dataSource, final long slowQueryMillis) {
+        super(dataSource);
+        this.slowNanos = TimeUnit.MILLISECONDS.toNanos(slowQueryMillis);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return observe(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(final String username, final String password) throws SQLException {
+        return observe(super.getConnection(username, password));
+    }
+
+    private Connection observe(final Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+            final Object result = invoke(connection, method, args);
+            if (result instanceof CallableStatement) {
+                return observe((Statement) result, CallableStatement.class, (String) args[0]);
+            }
+            if (result instanceof PreparedStatement) {
+                return observe((Statement) result, PreparedStatement.class, (String) args[0]);
+            }
+            if (result instanceof Statement) {
+                return observe((Statement) result, Statement.class, null);
+            }
+            return result;
+        });
+    }
+
+    private Statement observe(final Statement statement, final Class<? extends Statement> type, final String preparedSql) {
+        return (Statement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{type}, new InvocationHandler() {
+
+            // The bind parameters by their index, the first at 1.
+            private final List<Object> parameters = new ArrayList<>();
+
+            private int batched;
+
+            @Override
+            public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+                final String name = method.getName();
+                if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                    final int index = (Integer) args[0];
+                    while (parameters.size() <= index) {
+                        parameters.add(null);
+                    }
+                    // setNull is given the SQL type of the parameter, not a value.
+                    parameters.set(index, name.equals("setNull") ? null : args[1]);
+                } else if (name.equals("clearParameters")) {
+                    parameters.clear();
+                } else if (name.equals("addBatch")) {
+                    batched++;
+                } else if (name.startsWith("execute")) {
+                    final String sql = preparedSql != null ? preparedSql : args != null && args.length > 0 ? (String) args[0] : null;
+                    final long start = System.nanoTime();
+                    try {
+                        return ObservedDataSource.invoke(statement, method, args);
+                    } finally {
+                        record(sql, System.nanoTime() - start, parameters, batched);
+                        if (name.equals("executeBatch")) {
+                            batched = 0;
+                        }
+                    }
+                }
+                return ObservedDataSource.invoke(statement, method, args);
+            }
+        });
+    }
+
+    private void record(final String sql, final long elapsedNanos, final List<Object> parameters, final int batched) {
+        final QueryObservation observation = QueryObservation.current();
+        final boolean repeated = observation != null && sql != null && observation.record(sql, elapsedNanos);
+        if (elapsedNanos >= slowNanos) {
+            LOGGER.warn("Slow statement took {} ms from {}: {} with parameters {}{}", TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                    caller(), sql, parameters(parameters), batched > 0 ? " in a batch of " + batched : "");
+        }
+        if (repeated) {
+            LOGGER.warn("N+1 statement run {} times within the request from {}: {} with parameters {}",
+                    observation.getTimes(sql), caller(), sql, parameters(parameters));
+        }
+    }
+
+    private static String parameters(final List<Object> parameters) {
+        if (parameters.isEmpty()) {
+            return "[]";
+        }
+        final List<Object> logged = parameters.subList(1, parameters.size());
+        if (LOGGER.isDebugEnabled()) {
+            return logged.toString();
+        }
+        final List<Object> masked = new ArrayList<>(logged.size());
+        for (final Object parameter : logged) {
+            masked.add(parameter == null || parameter instanceof Number || parameter instanceof Boolean
+                    || parameter instanceof Date || parameter instanceof Temporal ? parameter : "***");
+        }
+        return masked.toString();
+    }
+
+    // The first method of the service layer on the stack, or of the application when the service layer was not involved.
+    private static String caller() {
+        String application = null;
+        for (final StackTraceElement element : new Throwable().getStackTrace()) {
+            final String className = element.getClassName();
+            if (className.startsWith(SERVICE_PACKAGE) && !className.contains("$$")) {
+                return element.getClassName() + "." + element.getMethodName();
+            }
+            if (application == null && className.startsWith("com.upgrad.quora.") && !className.startsWith(ObservedDataSource.class.getPackage().getName())) {
+                application = element.getClassName() + "." + element.getMethodName();
+            }
+        }
+        return application == null ? "unknown" : application;
+    }
+
+    private static Object invoke(final Object target, final Method method, final Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
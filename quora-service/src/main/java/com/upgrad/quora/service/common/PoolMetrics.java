@@ -0,0 +1,67 @@
+package com.upgrad.quora.service.common;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * This class registers the saturation gauges of a connection pool: its active, idle and maximum connections, the
+ * threads waiting for a connection, and the share of the maximum in use, all tagged with the name of the pool.
+ * The gauges of the pool metrics tracker only hold its statistics weakly and read NaN once they are collected, so these
+ * are read from the pool itself instead.
+ * <p>
+ * The data source configured by Spring Boot is monitored here, also when it is wrapped, the pools behind the replica
+ * routing are monitored by their own configuration.
+ */
+@Component
+public class PoolMetrics implements MeterBinder {
+
+    @Autowired
+    private ObjectProvider<DataSource> dataSource;
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        final DataSource configured = dataSource.getIfUnique();
+        try {
+            if (configured != null && configured.isWrapperFor(HikariDataSource.class)) {
+                monitor(registry, configured.unwrap(HikariDataSource.class));
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // The pool must be named before it is monitored, as the name tags each gauge.
+    public static void monitor(final MeterRegistry registry, final HikariDataSource pool) {
+        gauge(registry, pool, "jdbc.pool.active", "The connections in use", HikariPoolMXBean::getActiveConnections);
+        gauge(registry, pool, "jdbc.pool.idle", "The connections open and not in use", HikariPoolMXBean::getIdleConnections);
+        gauge(registry, pool, "jdbc.pool.pending", "The threads waiting for a connection", HikariPoolMXBean::getThreadsAwaitingConnection);
+        Gauge.builder("jdbc.pool.max", pool, HikariDataSource::getMaximumPoolSize)
+                .tags("pool", pool.getPoolName())
+                .description("The most connections the pool opens")
+                .register(registry);
+        gauge(registry, pool, "jdbc.pool.usage", "The share of the most connections of the pool in use",
+                bean -> (double) bean.getActiveConnections() / pool.getMaximumPoolSize());
+    }
+
+    // A pool is only started by its first connection, and reads NaN until then.
+    private static void gauge(final MeterRegistry registry, final HikariDataSource pool, final String name, final String description,
+                              final ToDoubleFunction<HikariPoolMXBean> value) {
+        Gauge.builder(name, pool, p -> {
+            final HikariPoolMXBean bean = p.getHikariPoolMXBean();
+            return bean == null ? Double.NaN : value.applyAsDouble(bean);
+        })
+                .tags("pool", pool.getPoolName())
+                .description(description)
+                .register(registry);
+    }
+}
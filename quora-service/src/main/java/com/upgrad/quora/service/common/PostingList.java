@@ -0,0 +1,163 @@
+package com.upgrad.quora.service.common;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * This class holds the postings of a word in the search index: the ids of the questions holding the word in ascending
+ * order, each with the number of times the word appears in the question.
+ * The postings are packed in a single byte array. Every id is stored as the difference to the previous one, and every
+ * number takes 7 bits per byte, so a posting mostly takes two or three bytes.
+ * Adding the posting of a new question only appends to the array, any other change packs the array again.
+ * The class is not thread-safe, it is guarded by the lock of the index.
+ */
+public final class PostingList {
+
+    private byte[] bytes = new byte[8];
+
+    private int length;
+
+    private int size;
+
+    private int lastId;
+
+    public int size() {
+        return size;
+    }
+
+    // This method adds the posting of the question, or replaces it if the question already has one.
+    public void add(final int id, final int frequency) {
+        if (size > 0 && id <= lastId) {
+            final PostingList postings = new PostingList();
+            final Cursor cursor = cursor();
+            boolean added = false;
+            while (cursor.next()) {
+                if (!added && cursor.id() >= id) {
+                    postings.append(id, frequency);
+                    added = true;
+                }
+                if (cursor.id() != id) {
+                    postings.append(cursor.id(), cursor.frequency());
+                }
+            }
+            replaceWith(postings);
+            return;
+        }
+        append(id, frequency);
+    }
+
+    /**
+     * @param id - id of the question
+     * @return - true if the question had a posting, false otherwise
+     */
+    public boolean remove(final int id) {
+        final PostingList postings = new PostingList();
+        final Cursor cursor = cursor();
+        while (cursor.next()) {
+            if (cursor.id() != id) {
+                postings.append(cursor.id(), cursor.frequency());
+            }
+        }
+        if (postings.size == size) {
+            return false;
+        }
+        replaceWith(postings);
+        return true;
+    }
+
+    /**
+     * @param ids - ids of the questions, the array is packed again only once however many of them had a posting
+     * @return - true if any of the questions had a posting, false otherwise
+     */
+    public boolean removeAll(final BitSet ids) {
+        final PostingList postings = new PostingList();
+        final Cursor cursor = cursor();
+        while (cursor.next()) {
+            if (!ids.get(cursor.id())) {
+                postings.append(cursor.id(), cursor.frequency());
+            }
+        }
+        if (postings.size == size) {
+            return false;
+        }
+        replaceWith(postings);
+        return true;
+    }
+
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    private void append(final int id, final int frequency) {
+        writeVarInt(id - lastId);
+        writeVarInt(frequency);
+        lastId = id;
+        size++;
+    }
+
+    private void writeVarInt(int value) {
+        if (length + 5 > bytes.length) {
+            final byte[] grown = new byte[Math.max(bytes.length * 2, length + 5)];
+            System.arraycopy(bytes, 0, grown, 0, length);
+            bytes = grown;
+        }
+        while ((value & ~0x7F) != 0) {
+            bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[length++] = (byte) value;
+    }
+
+    // The packed array is trimmed to its length, as a list which was packed again is rarely appended to afterwards.
+    private void replaceWith(final PostingList postings) {
+        bytes = Arrays.copyOf(postings.bytes, Math.max(postings.length, 1));
+        length = postings.length;
+        size = postings.size;
+        lastId = postings.lastId;
+    }
+
+    /**
+     * This class reads the postings one at a time, in ascending order of the question ids.
+     */
+    public final class Cursor {
+
+        private int offset;
+
+        private int remaining = size;
+
+        private int id;
+
+        private int frequency;
+
+        // This method moves to the next posting, it returns false when there is none left.
+        public boolean next() {
+            if (remaining == 0) {
+                return false;
+            }
+            id += readVarInt();
+            frequency = readVarInt();
+            remaining--;
+            return true;
+        }
+
+        public int id() {
+            return id;
+        }
+
+        public int frequency() {
+            return frequency;
+        }
+
+        private int readVarInt() {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = bytes[offset++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.upgrad.quora.service.common;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This class counts the statements run on behalf of a request, and the time they took, by the shape of each statement.
+ * The shape is the SQL as prepared, with ? in place of the values, so the same query for different rows has one shape.
+ * A shape run again and again within a request is flagged as N+1, typically a lazy or EAGER association being loaded
+ * one row at a time instead of by a join.
+ * <p>
+ * The observation is bound to the thread handling the request, the statements run on other threads are not counted.
+ */
+public class QueryObservation {
+
+    private static final ThreadLocal<QueryObservation> CURRENT = new ThreadLocal<>();
+
+    private final int repeatThreshold;
+
+    private int statements;
+
+    private long nanos;
+
+    // Key is the shape of a statement, value is the times it was run.
+    private final Map<String, Integer> shapes = new HashMap<>();
+
+    private final Set<String> repeatedShapes = new LinkedHashSet<>();
+
+    private QueryObservation(final int repeatThreshold) {
+        this.repeatThreshold = repeatThreshold;
+    }
+
+    // This method binds a new observation to the current thread, a shape run repeatThreshold times counts as N+1.
+    public static QueryObservation begin(final int repeatThreshold) {
+        final QueryObservation observation = new QueryObservation(repeatThreshold);
+        CURRENT.set(observation);
+        return observation;
+    }
+
+    // This method unbinds the observation of the current thread, and returns it or null when none was bound.
+    public static QueryObservation end() {
+        final QueryObservation observation = CURRENT.get();
+        CURRENT.remove();
+        return observation;
+    }
+
+    public static QueryObservation current() {
+        return CURRENT.get();
+    }
+
+    // Returns true when this statement makes its shape N+1, which happens once per shape.
+    boolean record(final String shape, final long elapsedNanos) {
+        statements++;
+        nanos += elapsedNanos;
+        final int times = shapes.merge(shape, 1, Integer::sum);
+        return times == repeatThreshold && repeatedShapes.add(shape);
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    public Set<String> getRepeatedShapes() {
+        return Collections.unmodifiableSet(repeatedShapes);
+    }
+
+    public int getTimes(final String shape) {
+        return shapes.getOrDefault(shape, 0);
+    }
+}
@@ -0,0 +1,156 @@
+package com.upgrad.quora.service.common;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class sends the read-only transactions to the replicas of the database, and everything else to the primary.
+ * The replicas are taken in turn, skipping the ones which failed their last health check or lag too far behind the
+ * primary. When no replica is healthy, or a replica fails to hand out a connection, the primary serves the read.
+ * <p>
+ * The reads of a session which committed a write within the read-your-writes window are sent to the primary, so a user
+ * always sees what they just posted. The session is the user bound to the current thread by the request handling.
+ * The writing sessions are only known to the instance of the application which served the write, so this holds only
+ * when the load balancer sends every request of a user to the same instance, by session affinity on the authorization
+ * header. Without it, a read served by another instance may see a replica which has not replayed the write yet.
+ * <p>
+ * The read-only flag of a transaction is only known once the transaction has begun, so this data source must be wrapped
+ * in a LazyConnectionDataSourceProxy, which fetches the connection when the first statement is run.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements Closeable {
+
+    // The lag of a replica in milliseconds, 0 when it has replayed everything it received or is not a standby at all.
+    private static final String LAG_QUERY = "SELECT CASE WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 "
+            + "ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000 END";
+
+    private static final ThreadLocal<String> SESSION = new ThreadLocal<>();
+
+    private final DataSource primary;
+
+    private final List<Replica> replicas = new ArrayList<>();
+
+    private final long maxLagMillis;
+
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    // The sessions which committed a write within the read-your-writes window.
+    private final Cache<String, Boolean> writingSessions;
+
+    public ReplicaRoutingDataSource(final DataSource primary, final List<HikariDataSource> replicas, final long maxLagMillis, final long readYourWritesMillis) {
+        this.primary = primary;
+        for (final HikariDataSource replica : replicas) {
+            this.replicas.add(new Replica(replica));
+        }
+        this.maxLagMillis = maxLagMillis;
+        this.writingSessions = Caffeine.newBuilder().expireAfterWrite(readYourWritesMillis, TimeUnit.MILLISECONDS).build();
+    }
+
+    // This method binds the session of the current request to the thread, the session is the uuid of the user.
+    public static void bindSession(final String session) {
+        SESSION.set(session);
+    }
+
+    public static void unbindSession() {
+        SESSION.remove();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        final Replica replica = getReplica();
+        if (replica != null) {
+            try {
+                return replica.dataSource.getConnection();
+            } catch (SQLException e) {
+                replica.healthy = false;
+            }
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(final String username, final String password) throws SQLException {
+        throw new SQLException("The connections of the primary and the replicas are all opened with their own credentials");
+    }
+
+    // This method checks every replica, a replica which cannot be reached or lags too far behind gets no more reads.
+    public void checkReplicas() {
+        for (final Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet result = statement.executeQuery(LAG_QUERY)) {
+                result.next();
+                final double lagMillis = result.getDouble(1);
+                replica.healthy = !result.wasNull() && lagMillis <= maxLagMillis;
+            } catch (SQLException e) {
+                replica.healthy = false;
+            }
+        }
+    }
+
+    List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    public int getHealthyReplicaCount() {
+        return (int) replicas.stream().filter(replica -> replica.healthy).count();
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(replica -> replica.dataSource.close());
+    }
+
+    /*
+     * This method returns the replica to read from, or null if the connection must come from the primary.
+     * A read-write transaction always goes to the primary, and the session is remembered as writing once it commits.
+     * A connection outside of any transaction goes to the primary as well.
+     */
+    Replica getReplica() {
+        final String session = SESSION.get();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (session != null && TransactionSynchronizationManager.isActualTransactionActive()) {
+                AfterCommit.run(() -> writingSessions.put(session, Boolean.TRUE));
+            }
+            return null;
+        }
+        if (session != null && writingSessions.getIfPresent(session) != null) {
+            return null;
+        }
+        for (int i = 0; i < replicas.size(); i++) {
+            final Replica replica = replicas.get(Math.floorMod(nextReplica.getAndIncrement(), replicas.size()));
+            if (replica.healthy) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * This class holds the connection pool of a replica, and the outcome of its last health check.
+     */
+    static final class Replica {
+
+        final HikariDataSource dataSource;
+
+        // A replica gets no reads until it has passed its first health check.
+        volatile boolean healthy;
+
+        private Replica(final HikariDataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+    }
+}
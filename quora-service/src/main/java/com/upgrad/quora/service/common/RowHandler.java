@@ -0,0 +1,12 @@
+package com.upgrad.quora.service.common;
+
+import java.io.IOException;
+
+/**
+ * This interface is called back with each row of a query result which is streamed rather than returned as a list.
+ */
+@FunctionalInterface
+public interface RowHandler<T> {
+
+    void handle(T row) throws IOException;
+}
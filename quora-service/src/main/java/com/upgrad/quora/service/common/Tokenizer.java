@@ -0,0 +1,35 @@
+package com.upgrad.quora.service.common;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * This class splits a text into the words it is searched by.
+ * A word is a run of letters and digits, in lower case, so the punctuation and the case of the text never matter.
+ */
+public final class Tokenizer {
+
+    private Tokenizer() {
+    }
+
+    public static List<String> tokenize(final String text) {
+        final List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            final boolean inWord = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (inWord && start < 0) {
+                start = i;
+            } else if (!inWord && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    // This method returns the words of the text separated by single spaces, the form in which texts are compared.
+    public static String normalize(final String text) {
+        return String.join(" ", tokenize(text));
+    }
+}
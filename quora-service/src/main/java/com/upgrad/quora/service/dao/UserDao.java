@@ -1,23 +1,44 @@
 package com.upgrad.quora.service.dao;
 
 
+import com.upgrad.quora.service.common.CacheInvalidation;
+import com.upgrad.quora.service.common.KeysetCursor;
+import com.upgrad.quora.service.common.RowHandler;
+import com.upgrad.quora.service.dto.AnswerDetails;
+import com.upgrad.quora.service.dto.QuestionDetails;
 import com.upgrad.quora.service.entity.AnswerEntity;
 import com.upgrad.quora.service.entity.QuestionEntity;
 import com.upgrad.quora.service.entity.UserAuthTokenEntity;
 import com.upgrad.quora.service.entity.UserEntity;
 import com.upgrad.quora.service.exception.SignUpRestrictedException;
+import org.hibernate.ScrollMode;
+import org.hibernate.SessionFactory;
+import org.hibernate.ScrollableResults;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.query.Query;
 import org.postgresql.util.PSQLException;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.Cache;
 import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
 import javax.persistence.NoResultException;
 import javax.persistence.PersistenceContext;
 import javax.persistence.TypedQuery;
+import java.io.IOException;
 import java.sql.SQLException;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 @Repository
 public class UserDao {
+
+    private static final String ANSWER_COUNT_QUERY_SPACE = "question_answer_count";
+
+    private static final String PURGE_CLAIM_QUERY_SPACE = "users_purge_claim";
+
     @PersistenceContext
     private EntityManager entityManager;
 
@@ -54,26 +75,117 @@ public class UserDao {
         }
     }
 
+    // Returns an uninitialized reference to the user, which is only loaded if one of its fields other than the id is read.
+    public UserEntity getUserReference(final Integer id) {
+        return entityManager.getReference(UserEntity.class, id);
+    }
+
     public UserAuthTokenEntity createAuthToken(final UserAuthTokenEntity userAuthTokenEntity) {
         entityManager.persist(userAuthTokenEntity);
         return userAuthTokenEntity;
     }
 
-    public UserAuthTokenEntity getUserAuthToken(final String accessToken) {
+    // The digest index is not unique, so the first token found is taken rather than failing on a repeated token.
+    public UserAuthTokenEntity getUserAuthTokenByDigest(final byte[] accessTokenDigest) {
+        final List<UserAuthTokenEntity> tokens = entityManager.createNamedQuery("userAuthTokenByAccessTokenDigest",
+                UserAuthTokenEntity.class).setParameter("accessTokenDigest", accessTokenDigest).setMaxResults(1).getResultList();
+        return tokens.isEmpty() ? null : tokens.get(0);
+    }
+
+    // Looks up a token by its full value, only the tokens whose digest has not been backfilled yet are searched.
+    public UserAuthTokenEntity getUserAuthTokenWithoutDigest(final String accessToken) {
+        final List<UserAuthTokenEntity> tokens = entityManager.createNamedQuery("userAuthTokenByAccessToken",
+                UserAuthTokenEntity.class).setParameter("accessToken", accessToken).setMaxResults(1).getResultList();
+        return tokens.isEmpty() ? null : tokens.get(0);
+    }
+
+    // Returns the id and the access token of the first tokens which have no digest yet.
+    public List<Object[]> getUserAuthTokensWithoutDigest(final int maxResults) {
+        return entityManager.createNamedQuery("userAuthTokensWithoutDigest", Object[].class)
+                .setMaxResults(maxResults).getResultList();
+    }
+
+    public int setAccessTokenDigest(final Integer id, final byte[] accessTokenDigest) {
+        return entityManager.createNamedQuery("setAccessTokenDigest").setParameter("id", id)
+                .setParameter("accessTokenDigest", accessTokenDigest).executeUpdate();
+    }
+
+    public void updateUserAuthToken(final UserAuthTokenEntity userAuthTokenEntity) {
+        entityManager.merge(userAuthTokenEntity);
+    }
+
+    // The user is hidden by the lookups from now on, and its access tokens are deleted so that none of them is accepted any more.
+    public void markUserDeleted(final UserEntity userEntity, final ZonedDateTime deletedAt) {
+        userEntity.setDeletedAt(deletedAt);
+        entityManager.merge(userEntity);
+        entityManager.createNamedQuery("deleteAuthTokensOfUser").setParameter("user", userEntity).executeUpdate();
+    }
+
+    public UserEntity getDeletedUser(final String userId) {
         try {
-            return entityManager.createNamedQuery("userAuthTokenByAccessToken",
-                    UserAuthTokenEntity.class).setParameter("accessToken", accessToken).getSingleResult();
+            return entityManager.createNamedQuery("deletedUserById", UserEntity.class).setParameter("uuid", userId)
+                    .getSingleResult();
         } catch (NoResultException nre) {
             return null;
         }
     }
 
-    public void updateUserAuthToken(final UserAuthTokenEntity userAuthTokenEntity) {
-        entityManager.merge(userAuthTokenEntity);
+    // Returns the id and the uuid of the deleted users which have not been purged yet, the oldest deletion first.
+    public List<Object[]> getDeletedUsers() {
+        return entityManager.createNamedQuery("deletedUsers", Object[].class).getResultList();
+    }
+
+    /*
+     * This method claims the purge of the deleted user for the owner, or renews the claim the owner already holds.
+     * The row of the user stays locked until the transaction ends, so a claim cannot be taken over during a batch.
+     * The claim is kept in columns no entity maps, under a query space of its own, so no cached user is evicted.
+     */
+    public boolean claimUserPurge(final Integer userId, final String owner, final long timeoutSeconds) {
+        return updateColumns(entityManager.createNamedQuery("claimUserPurge").setParameter("id", userId).setParameter("owner", owner)
+                .setParameter("timeoutSeconds", timeoutSeconds), PURGE_CLAIM_QUERY_SPACE) == 1;
+    }
+
+    // Deletes a batch of the answers of the user, and returns the id of every answer deleted with the id and uuid of the
+    // question it was posted for. The answers are taken off the answer counts of the questions of other users.
+    @SuppressWarnings("unchecked")
+    public List<Object[]> deleteAnswersOfUser(final Integer userId, final int limit) {
+        return entityManager.createNamedQuery("deleteAnswersOfUser").setParameter("userId", userId)
+                .setParameter("limit", limit).getResultList();
+    }
+
+    // Deletes a batch of the answers posted for the questions of the user, and returns the ids of the answers deleted.
+    @SuppressWarnings("unchecked")
+    public List<Number> deleteAnswersToQuestionsOfUser(final Integer userId, final int limit) {
+        return entityManager.createNamedQuery("deleteAnswersToQuestionsOfUser").setParameter("userId", userId)
+                .setParameter("limit", limit).getResultList();
+    }
+
+    // Deletes a batch of the questions of the user, which must have no answers left, and returns their ids and uuids.
+    @SuppressWarnings("unchecked")
+    public List<Object[]> deleteQuestionsOfUser(final Integer userId, final int limit) {
+        return entityManager.createNamedQuery("deleteQuestionsOfUser").setParameter("userId", userId)
+                .setParameter("limit", limit).getResultList();
+    }
+
+    // Deletes the user once its questions and answers are purged, any access token left is deleted by the database.
+    public void purgeUser(final Integer userId) {
+        entityManager.createNamedQuery("purgeUser").setParameter("id", userId).executeUpdate();
     }
 
-    public void deleteUser(final UserEntity userEntity) {
-        entityManager.remove(userEntity);
+    // The questions and answers of a deleted user are purged in SQL, which Hibernate does not know about, so they are
+    // evicted from the second-level cache by hand, along with the cached lookups of their kind. The questions are the
+    // ones deleted or whose answer count changed.
+    public void evictPurgedRows(final Collection<Integer> questionIds, final Collection<Integer> answerIds) {
+        final Cache cache = entityManager.getEntityManagerFactory().getCache();
+        final SessionFactory sessionFactory = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class);
+        questionIds.forEach(id -> cache.evict(QuestionEntity.class, id));
+        answerIds.forEach(id -> cache.evict(AnswerEntity.class, id));
+        if (!questionIds.isEmpty()) {
+            sessionFactory.getCache().evictQueryRegion(QuestionEntity.QUERY_REGION);
+        }
+        if (!answerIds.isEmpty()) {
+            sessionFactory.getCache().evictQueryRegion(AnswerEntity.QUERY_REGION);
+        }
     }
 
 
@@ -83,9 +195,30 @@ public class UserDao {
         return questionEntity;
     }
 
-    public List<QuestionEntity> getAllQuestions() {
-        List<QuestionEntity> questiontList = entityManager.createNamedQuery("getAllQuestions", QuestionEntity.class).getResultList();
-        return questiontList;
+    // Returns the questions, newest first, which come after the cursor if there is one.
+    public List<QuestionDetails> getAllQuestions(final KeysetCursor after, final int maxResults) {
+        final TypedQuery<QuestionDetails> query;
+        if (after == null) {
+            query = entityManager.createNamedQuery("getAllQuestions", QuestionDetails.class);
+        } else {
+            query = entityManager.createNamedQuery("getAllQuestionsAfter", QuestionDetails.class)
+                    .setParameter("date", after.getDate()).setParameter("id", after.getId());
+        }
+        return query.setMaxResults(maxResults).getResultList();
+    }
+
+    /*
+     * Streams all the questions to the handler through a forward-only database cursor, fetchSize rows at a time.
+     * The rows are projections rather than entities, so nothing is kept in the persistence context as they are read.
+     * Must be called within a transaction, as the PostgreSQL driver only fetches the rows in batches outside of autocommit.
+     */
+    public void exportAllQuestions(final int fetchSize, final RowHandler<QuestionDetails> handler) throws IOException {
+        try (ScrollableResults questions = entityManager.createNamedQuery("exportAllQuestions", QuestionDetails.class)
+                .unwrap(Query.class).setFetchSize(fetchSize).setReadOnly(true).scroll(ScrollMode.FORWARD_ONLY)) {
+            while (questions.next()) {
+                handler.handle((QuestionDetails) questions.get(0));
+            }
+        }
     }
 
     public QuestionEntity getQuestionById(String questionId) {
@@ -97,6 +230,28 @@ public class UserDao {
         }
     }
 
+    // Returns the question with this id, or null when it is no longer in the database.
+    public QuestionEntity findQuestion(final Integer id) {
+        return entityManager.find(QuestionEntity.class, id);
+    }
+
+    public QuestionDetails getQuestionDetailsById(final String questionId) {
+        try {
+            return entityManager.createNamedQuery("getQuestionDetailsById", QuestionDetails.class).setParameter("uuid", questionId)
+                    .getSingleResult();
+        } catch (NoResultException nre) {
+            return null;
+        }
+    }
+
+    // The questions are returned in no particular order, and the ids with no question are left out.
+    public List<QuestionDetails> getQuestionDetailsByIds(final Collection<Integer> questionIds) {
+        if (questionIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return entityManager.createNamedQuery("getQuestionDetailsByIds", QuestionDetails.class).setParameter("ids", questionIds).getResultList();
+    }
+
     public QuestionEntity editQuestion(QuestionEntity questionEntity, String updatedQuestion) {
         questionEntity.setContent(updatedQuestion);
         entityManager.merge(questionEntity);
@@ -107,17 +262,24 @@ public class UserDao {
         entityManager.remove(questionEntity);
     }
 
-    public List<QuestionEntity> getAllQuestionsOfUser(final UserEntity user) {
-        try {
-            return entityManager.createNamedQuery("getQuestionByUserId", QuestionEntity.class).setParameter("user", user).getResultList();
-        } catch (NoResultException nre) {
-            return null;
+    // Returns the questions of the user with the given uuid, newest first, which come after the cursor if there is one.
+    public List<QuestionDetails> getAllQuestionsOfUser(final String userId, final KeysetCursor after, final int maxResults) {
+        final TypedQuery<QuestionDetails> query;
+        if (after == null) {
+            query = entityManager.createNamedQuery("getQuestionByUserId", QuestionDetails.class);
+        } else {
+            query = entityManager.createNamedQuery("getQuestionByUserIdAfter", QuestionDetails.class)
+                    .setParameter("date", after.getDate()).setParameter("id", after.getId());
         }
+        return query.setParameter("uuid", userId).setMaxResults(maxResults).getResultList();
     }
 
     //Methods for Answer Controller
+    // The answer count of the question is changed in the same transaction as the answer, by a single update statement,
+    // so concurrent answers to the same question never overwrite each other's count.
     public AnswerEntity createAnswer(AnswerEntity answerEntity) {
         entityManager.persist(answerEntity);
+        addToAnswerCount(answerEntity.getQuestion().getId(), 1);
         return answerEntity;
     }
 
@@ -138,14 +300,58 @@ public class UserDao {
 
     public void deleteAnswer(AnswerEntity answerEntity) {
         entityManager.remove(answerEntity);
+        addToAnswerCount(answerEntity.getQuestion().getId(), -1);
     }
 
-    public List<AnswerEntity> getAllAnswersOfQuestion(final QuestionEntity question) {
+    public List<AnswerDetails> getAllAnswersOfQuestion(final QuestionDetails question) {
         try {
-            return entityManager.createNamedQuery("getAnswersByQuestionId", AnswerEntity.class).setParameter("question", question).getResultList();
+            return entityManager.createNamedQuery("getAnswersByQuestionId", AnswerDetails.class).setParameter("questionId", question.getId()).getResultList();
         } catch (NoResultException nre) {
             return null;
         }
     }
 
+    public Integer getMaxQuestionId() {
+        return entityManager.createNamedQuery("getMaxQuestionId", Integer.class).getSingleResult();
+    }
+
+    // Returns the id, uuid and content of the questions in the id range, without loading them as entities.
+    public List<Object[]> getQuestionContents(final Integer firstId, final Integer lastId) {
+        return entityManager.createNamedQuery("getQuestionContentsInRange", Object[].class).setParameter("firstId", firstId)
+                .setParameter("lastId", lastId).getResultList();
+    }
+
+    /*
+     * This method sets the answer count of the questions in the id range which differs from the number of their answers.
+     * The questions are locked first, and counted by a later statement, so an answer created or deleted concurrently is
+     * either already committed when the answers are counted, or changes the count only after it has been repaired.
+     */
+    public int reconcileAnswerCounts(final Integer firstId, final Integer lastId) {
+        entityManager.createNamedQuery("lockQuestionsInRange", Integer.class).setParameter("firstId", firstId)
+                .setParameter("lastId", lastId).setLockMode(LockModeType.PESSIMISTIC_WRITE).getResultList();
+        return updateQuestions(entityManager.createNamedQuery("reconcileAnswerCounts").setParameter("firstId", firstId)
+                .setParameter("lastId", lastId));
+    }
+
+    // A native update is declared to change only the question table, otherwise Hibernate clears the whole second-level cache.
+    private int updateQuestions(final javax.persistence.Query query) {
+        return query.unwrap(NativeQuery.class).addSynchronizedEntityClass(QuestionEntity.class).executeUpdate();
+    }
+
+    /*
+     * The count is updated under a query space of its own, as a native update synchronized on the question table still
+     * makes Hibernate clear every cached question. No cached query reads the count, so only the question whose count
+     * changed is evicted, the way the purged rows are.
+     */
+    private void addToAnswerCount(final Integer questionId, final int delta) {
+        updateColumns(entityManager.createNamedQuery("addToAnswerCount").setParameter("id", questionId).setParameter("delta", delta),
+                ANSWER_COUNT_QUERY_SPACE);
+        final Cache cache = entityManager.getEntityManagerFactory().getCache();
+        CacheInvalidation.runNowAndAfterCommit(() -> cache.evict(QuestionEntity.class, questionId));
+    }
+
+    // A native update of columns no cached query reads is synchronized on a query space of its own, so nothing is evicted.
+    private int updateColumns(final javax.persistence.Query query, final String querySpace) {
+        return query.unwrap(NativeQuery.class).addSynchronizedQuerySpace(querySpace).executeUpdate();
+    }
 }
@@ -0,0 +1,25 @@
+package com.upgrad.quora.service.dto;
+
+/**
+ * This class holds the columns of an answer which are returned by the answer listing of a question.
+ * It is built directly by the listing query, so neither the answer nor its question and user are loaded as entities.
+ */
+public class AnswerDetails {
+
+    private final String uuid;
+
+    private final String ans;
+
+    public AnswerDetails(final String uuid, final String ans) {
+        this.uuid = uuid;
+        this.ans = ans;
+    }
+
+    public String getUuid() {
+        return uuid;
+    }
+
+    public String getAns() {
+        return ans;
+    }
+}
@@ -0,0 +1,25 @@
+package com.upgrad.quora.service.dto;
+
+/**
+ * This class holds a question ranked among the hot questions, with its score at the time it was ranked.
+ * The score is the number of its recent answers, each counting less as it gets older.
+ */
+public class HotQuestion {
+
+    private final QuestionDetails question;
+
+    private final double score;
+
+    public HotQuestion(final QuestionDetails question, final double score) {
+        this.question = question;
+        this.score = score;
+    }
+
+    public QuestionDetails getQuestion() {
+        return question;
+    }
+
+    public double getScore() {
+        return score;
+    }
+}
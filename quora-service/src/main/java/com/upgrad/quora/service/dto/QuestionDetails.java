@@ -0,0 +1,49 @@
+package com.upgrad.quora.service.dto;
+
+import java.time.ZonedDateTime;
+
+/**
+ * This class holds the columns of a question which are returned by the question listings.
+ * It is built directly by the listing queries, so neither the question nor its user is loaded as an entity.
+ */
+public class QuestionDetails {
+
+    private final Integer id;
+
+    private final String uuid;
+
+    private final String content;
+
+    private final ZonedDateTime date;
+
+    // Null for the questions posted before the count was kept, until the reconciliation job has counted their answers.
+    private final Integer answerCount;
+
+    public QuestionDetails(final Integer id, final String uuid, final String content, final ZonedDateTime date, final Integer answerCount) {
+        this.id = id;
+        this.uuid = uuid;
+        this.content = content;
+        this.date = date;
+        this.answerCount = answerCount;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public String getUuid() {
+        return uuid;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public ZonedDateTime getDate() {
+        return date;
+    }
+
+    public Integer getAnswerCount() {
+        return answerCount;
+    }
+}
@@ -0,0 +1,31 @@
+package com.upgrad.quora.service.dto;
+
+/**
+ * This class holds a question found by the search, with the score it was ranked by.
+ */
+public class QuestionSearchResult {
+
+    private final String uuid;
+
+    private final String content;
+
+    private final double score;
+
+    public QuestionSearchResult(final String uuid, final String content, final double score) {
+        this.uuid = uuid;
+        this.content = content;
+        this.score = score;
+    }
+
+    public String getUuid() {
+        return uuid;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public double getScore() {
+        return score;
+    }
+}
@@ -0,0 +1,32 @@
+package com.upgrad.quora.service.dto;
+
+/**
+ * This class holds a question suggested for the text a user has started to type.
+ * The suggestions are immutable, so the suggestion index hands out the same instances to every request.
+ */
+public class QuestionSuggestion {
+
+    private final Integer id;
+
+    private final String uuid;
+
+    private final String content;
+
+    public QuestionSuggestion(final Integer id, final String uuid, final String content) {
+        this.id = id;
+        this.uuid = uuid;
+        this.content = content;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public String getUuid() {
+        return uuid;
+    }
+
+    public String getContent() {
+        return content;
+    }
+}
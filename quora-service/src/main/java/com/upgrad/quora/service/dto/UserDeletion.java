@@ -0,0 +1,79 @@
+package com.upgrad.quora.service.dto;
+
+/**
+ * This class holds the progress of the purge of a deleted user, as the number of its answers and questions deleted so far.
+ * The progress is only changed by the thread running the purge, and may be read by any other thread.
+ */
+public class UserDeletion {
+
+    public enum Status {
+        PENDING, RUNNING, COMPLETED, FAILED
+    }
+
+    private final String userId;
+
+    private volatile Status status = Status.PENDING;
+
+    private volatile long answersDeleted;
+
+    private volatile long questionsDeleted;
+
+    private volatile long finishedAtMillis;
+
+    private volatile String failure;
+
+    public UserDeletion(final String userId) {
+        this.userId = userId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public long getAnswersDeleted() {
+        return answersDeleted;
+    }
+
+    public long getQuestionsDeleted() {
+        return questionsDeleted;
+    }
+
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED;
+    }
+
+    public long getFinishedAtMillis() {
+        return finishedAtMillis;
+    }
+
+    // The cause of a failed purge, null unless the purge failed.
+    public String getFailure() {
+        return failure;
+    }
+
+    public void start() {
+        status = Status.RUNNING;
+    }
+
+    public void addAnswersDeleted(final long count) {
+        answersDeleted += count;
+    }
+
+    public void addQuestionsDeleted(final long count) {
+        questionsDeleted += count;
+    }
+
+    public void finish(final Status finalStatus) {
+        finishedAtMillis = System.currentTimeMillis();
+        status = finalStatus;
+    }
+
+    public void fail(final Exception cause) {
+        failure = cause.toString();
+        finish(Status.FAILED);
+    }
+}
@@ -1,6 +1,8 @@
 package com.upgrad.quora.service.entity;
 
 
+import org.hibernate.annotations.QueryHints;
+
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
@@ -9,15 +11,30 @@ import java.time.ZonedDateTime;
 @Entity
 @Table(name = "answer")
 @NamedQueries({
-        @NamedQuery(name = "getAnswerById" , query = "SELECT a from AnswerEntity a where a.uuid =:uuid"),
-        @NamedQuery(name = "getAnswersByQuestionId" , query = "SELECT a from AnswerEntity a where a.question =:question")
+        @NamedQuery(name = "getAnswerById" , query = "SELECT a from AnswerEntity a where a.uuid =:uuid", hints = {
+                @QueryHint(name = QueryHints.CACHEABLE, value = "true"), @QueryHint(name = QueryHints.CACHE_REGION, value = AnswerEntity.QUERY_REGION)}),
+        @NamedQuery(name = "getAnswersByQuestionId" , query = "SELECT new com.upgrad.quora.service.dto.AnswerDetails(a.uuid, a.ans) from AnswerEntity a where a.question.id =:questionId")
 
 })
+// The answers of a deleted user are purged in batches, each deleted by a single statement which also takes the answers
+// off the answer counts of the questions of other users, and returns the id of every answer it deleted with the id and
+// uuid of its question.
+@NamedNativeQueries({
+        @NamedNativeQuery(name = "deleteAnswersOfUser" , query = "with deleted as (delete from answer where id in (select id from answer where user_id = :userId limit :limit) returning id, question_id), "
+                + "counted as (select question_id, count(*) as count from deleted group by question_id), "
+                + "updated as (update question q set answer_count = q.answer_count - c.count from counted c where q.id = c.question_id and q.user_id <> :userId) "
+                + "select d.id, q.id as question_id, q.uuid from deleted d join question q on q.id = d.question_id"),
+        @NamedNativeQuery(name = "deleteAnswersToQuestionsOfUser" , query = "delete from answer where id in (select a.id from answer a join question q on q.id = a.question_id where q.user_id = :userId limit :limit) returning id")
+})
 public class AnswerEntity {
 
+    // The region of the cached lookups of answers, evicted on its own when answers are deleted in SQL.
+    public static final String QUERY_REGION = "answer-query";
+
     @Id
     @Column(name = "ID")
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "answer_id_seq")
+    @SequenceGenerator(name = "answer_id_seq", sequenceName = "answer_id_seq", allocationSize = 50)
     private Integer id;
 
     @Column(name = "UUID")
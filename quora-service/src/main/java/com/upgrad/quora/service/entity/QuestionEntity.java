@@ -1,5 +1,7 @@
 package com.upgrad.quora.service.entity;
 
+import org.hibernate.annotations.QueryHints;
+
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
@@ -10,15 +12,35 @@ import java.util.List;
 @Entity
 @Table(name = "question")
 @NamedQueries({
-        @NamedQuery(name = "getAllQuestions" , query = "SELECT q from QuestionEntity q"),
-        @NamedQuery(name = "getQuestionById" , query = "SELECT q from QuestionEntity q where q.uuid =:uuid"),
-        @NamedQuery(name = "getQuestionByUserId" , query = "SELECT q from QuestionEntity q where q.user =:user")
+        @NamedQuery(name = "getAllQuestions" , query = "SELECT new com.upgrad.quora.service.dto.QuestionDetails(q.id, q.uuid, q.content, q.date, q.answerCount) from QuestionEntity q order by q.date desc, q.id desc"),
+        @NamedQuery(name = "getAllQuestionsAfter" , query = "SELECT new com.upgrad.quora.service.dto.QuestionDetails(q.id, q.uuid, q.content, q.date, q.answerCount) from QuestionEntity q where (q.date, q.id) < (:date, :id) order by q.date desc, q.id desc"),
+        @NamedQuery(name = "exportAllQuestions" , query = "SELECT new com.upgrad.quora.service.dto.QuestionDetails(q.id, q.uuid, q.content, q.date, q.answerCount) from QuestionEntity q order by q.id"),
+        @NamedQuery(name = "getQuestionById" , query = "SELECT q from QuestionEntity q where q.uuid =:uuid", hints = {
+                @QueryHint(name = QueryHints.CACHEABLE, value = "true"), @QueryHint(name = QueryHints.CACHE_REGION, value = QuestionEntity.QUERY_REGION)}),
+        @NamedQuery(name = "getQuestionDetailsByIds" , query = "SELECT new com.upgrad.quora.service.dto.QuestionDetails(q.id, q.uuid, q.content, q.date, q.answerCount) from QuestionEntity q where q.id in :ids"),
+        @NamedQuery(name = "getQuestionDetailsById" , query = "SELECT new com.upgrad.quora.service.dto.QuestionDetails(q.id, q.uuid, q.content, q.date, q.answerCount) from QuestionEntity q where q.uuid =:uuid"),
+        @NamedQuery(name = "getQuestionByUserId" , query = "SELECT new com.upgrad.quora.service.dto.QuestionDetails(q.id, q.uuid, q.content, q.date, q.answerCount) from QuestionEntity q where q.user.uuid =:uuid order by q.date desc, q.id desc"),
+        @NamedQuery(name = "getQuestionByUserIdAfter" , query = "SELECT new com.upgrad.quora.service.dto.QuestionDetails(q.id, q.uuid, q.content, q.date, q.answerCount) from QuestionEntity q where q.user.uuid =:uuid and (q.date, q.id) < (:date, :id) order by q.date desc, q.id desc"),
+        @NamedQuery(name = "getMaxQuestionId" , query = "SELECT max(q.id) from QuestionEntity q"),
+        @NamedQuery(name = "getQuestionContentsInRange" , query = "SELECT q.id, q.uuid, q.content from QuestionEntity q where q.id between :firstId and :lastId order by q.id"),
+        @NamedQuery(name = "lockQuestionsInRange" , query = "SELECT q.id from QuestionEntity q where q.id between :firstId and :lastId order by q.id")
+})
+// Hibernate does not qualify the columns of the updated table inside a subquery, so these updates are written in SQL.
+// The questions of a deleted user are purged in batches, each batch returning the id and uuid of the questions it deleted.
+// The answer count is changed in SQL too, as a bulk update in JPQL makes Hibernate clear every cached question.
+@NamedNativeQueries({
+        @NamedNativeQuery(name = "addToAnswerCount" , query = "update question set answer_count = coalesce(answer_count, 0) + :delta where id = :id"),
+        @NamedNativeQuery(name = "reconcileAnswerCounts" , query = "update question q set answer_count = c.count from (select q2.id, count(a.id) as count from question q2 left join answer a on a.question_id = q2.id where q2.id between :firstId and :lastId group by q2.id) c where q.id = c.id and q.answer_count is distinct from c.count"),
+        @NamedNativeQuery(name = "deleteQuestionsOfUser" , query = "delete from question where id in (select id from question where user_id = :userId limit :limit) returning id, uuid")
 })
-
 public class QuestionEntity {
+
+    // The region of the cached lookups of questions, evicted on its own when questions are deleted in SQL.
+    public static final String QUERY_REGION = "question-query";
     @Id
     @Column(name = "ID")
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "question_id_seq")
+    @SequenceGenerator(name = "question_id_seq", sequenceName = "question_id_seq", allocationSize = 50)
     private Integer id;
 
     @Column(name = "UUID")
@@ -35,6 +57,10 @@ public class QuestionEntity {
     @NotNull
     private ZonedDateTime date;
 
+    // The count is only changed by the update queries of the answers, never by writing the entity back.
+    @Column(name = "ANSWER_COUNT", insertable = false, updatable = false)
+    private Integer answerCount;
+
     @ManyToOne(fetch = FetchType.EAGER)
     @JoinColumn(name = "USER_ID")
     private UserEntity user;
@@ -42,6 +68,10 @@ public class QuestionEntity {
     @OneToMany(mappedBy = "question", cascade = CascadeType.REMOVE, fetch = FetchType.LAZY)
     private List<AnswerEntity> answer = new ArrayList<>();
 
+    // The uuid of a nearly identical question found when this question was created, if duplicates are only flagged.
+    @Transient
+    private String duplicateOf;
+
     public Integer getId() {
         return id;
     }
@@ -74,6 +104,18 @@ public class QuestionEntity {
         this.date = date;
     }
 
+    public Integer getAnswerCount() {
+        return answerCount;
+    }
+
+    public String getDuplicateOf() {
+        return duplicateOf;
+    }
+
+    public void setDuplicateOf(String duplicateOf) {
+        this.duplicateOf = duplicateOf;
+    }
+
     public UserEntity getUser() {
         return user;
     }
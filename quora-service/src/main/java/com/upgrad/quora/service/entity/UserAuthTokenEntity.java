@@ -1,5 +1,6 @@
 package com.upgrad.quora.service.entity;
 
+import com.upgrad.quora.service.common.AccessTokenDigest;
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.apache.commons.lang3.builder.ToStringBuilder;
@@ -14,13 +15,18 @@ import java.time.ZonedDateTime;
 @Entity
 @Table(name = "user_auth")
 @NamedQueries({
-        @NamedQuery(name = "userAuthTokenByAccessToken" , query = "select ut from UserAuthTokenEntity ut where ut.accessToken = :accessToken ")
+        @NamedQuery(name = "userAuthTokenByAccessTokenDigest" , query = "select ut from UserAuthTokenEntity ut join fetch ut.user where ut.accessTokenDigest = :accessTokenDigest "),
+        @NamedQuery(name = "userAuthTokenByAccessToken" , query = "select ut from UserAuthTokenEntity ut join fetch ut.user where ut.accessToken = :accessToken and ut.accessTokenDigest is null "),
+        @NamedQuery(name = "userAuthTokensWithoutDigest" , query = "select ut.id, ut.accessToken from UserAuthTokenEntity ut where ut.accessTokenDigest is null order by ut.id "),
+        @NamedQuery(name = "setAccessTokenDigest" , query = "update UserAuthTokenEntity ut set ut.accessTokenDigest = :accessTokenDigest where ut.id = :id and ut.accessTokenDigest is null "),
+        @NamedQuery(name = "deleteAuthTokensOfUser" , query = "delete from UserAuthTokenEntity ut where ut.user = :user ")
 })
 public class UserAuthTokenEntity implements Serializable {
 
     @Id
     @Column(name = "ID")
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_auth_id_seq")
+    @SequenceGenerator(name = "user_auth_id_seq", sequenceName = "user_auth_id_seq", allocationSize = 50)
     private Integer id;
 
     @JoinColumn(name = "UUID")
@@ -35,6 +41,10 @@ public class UserAuthTokenEntity implements Serializable {
     @Size(max = 500)
     private String accessToken;
 
+    // SHA-256 digest of the access token, the tokens are looked up by this column rather than by the token itself.
+    @Column(name = "ACCESS_TOKEN_DIGEST")
+    private byte[] accessTokenDigest;
+
     @Column(name = "LOGIN_AT")
     @NotNull
     private ZonedDateTime loginAt;
@@ -70,6 +80,14 @@ public class UserAuthTokenEntity implements Serializable {
         this.accessToken = accessToken;
     }
 
+    public byte[] getAccessTokenDigest() {
+        return accessTokenDigest;
+    }
+
+    public void setAccessTokenDigest(byte[] accessTokenDigest) {
+        this.accessTokenDigest = accessTokenDigest;
+    }
+
     public ZonedDateTime getLoginAt() {
         return loginAt;
     }
@@ -102,6 +120,13 @@ public class UserAuthTokenEntity implements Serializable {
         this.uuid = uuid;
     }
 
+    @PrePersist
+    void computeAccessTokenDigest() {
+        if (accessTokenDigest == null && accessToken != null) {
+            accessTokenDigest = AccessTokenDigest.of(accessToken);
+        }
+    }
+
 //    @Override
 //    public boolean equals(Object obj) {
 //        return new EqualsBuilder().append(this, obj).isEquals();
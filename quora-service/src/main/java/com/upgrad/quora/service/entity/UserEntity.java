@@ -1,9 +1,12 @@
 package com.upgrad.quora.service.entity;
 
+import org.hibernate.annotations.QueryHints;
+
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
 import java.io.Serializable;
+import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -13,15 +16,21 @@ import java.util.List;
         {
                 @NamedQuery(name = "userByUsername", query = "select u from UserEntity u where u.username = :username"),
                 @NamedQuery(name = "userByEmail", query = "select u from UserEntity u where u.email =:email"),
-                @NamedQuery(name = "userById", query = "select u from UserEntity u where u.uuid =:uuid")
+                @NamedQuery(name = "userById", query = "select u from UserEntity u where u.uuid =:uuid and u.deletedAt is null", hints = @QueryHint(name = QueryHints.CACHEABLE, value = "true")),
+                @NamedQuery(name = "deletedUserById", query = "select u from UserEntity u where u.uuid =:uuid and u.deletedAt is not null"),
+                @NamedQuery(name = "deletedUsers", query = "select u.id, u.uuid from UserEntity u where u.deletedAt is not null order by u.deletedAt"),
+                @NamedQuery(name = "purgeUser", query = "delete from UserEntity u where u.id = :id")
 
         }
 )
+// The claim on the purge of a deleted user is taken when nobody holds it, renewed by its holder, or taken over once it expired.
+@NamedNativeQuery(name = "claimUserPurge", query = "update users set purged_by = :owner, purge_claimed_at = now() where id = :id and deleted_at is not null and (purged_by is null or purged_by = :owner or purge_claimed_at < now() - :timeoutSeconds * interval '1 second')")
 public class UserEntity implements Serializable{
 
     @Id
     @Column(name = "ID")
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_id_seq")
+    @SequenceGenerator(name = "users_id_seq", sequenceName = "users_id_seq", allocationSize = 50)
     private Integer id;
 
     @Column(name = "UUID")
@@ -80,7 +89,12 @@ public class UserEntity implements Serializable{
     @Size(max = 30)
     private String contactnumber;
 
-    @OneToMany(mappedBy = "user", cascade = CascadeType.REMOVE, fetch = FetchType.LAZY)
+    // Set when the user is deleted, the questions and answers of the user are purged in the background after that.
+    @Column(name = "DELETED_AT")
+    private ZonedDateTime deletedAt;
+
+    // The questions are deleted in batches by the purge of a deleted user, never through this list.
+    @OneToMany(mappedBy = "user", fetch = FetchType.LAZY)
     private List<QuestionEntity> question = new ArrayList<>();
 
     public Integer getId() {
@@ -187,4 +201,12 @@ public class UserEntity implements Serializable{
         this.contactnumber = contactnumber;
     }
 
+    public ZonedDateTime getDeletedAt() {
+        return deletedAt;
+    }
+
+    public void setDeletedAt(ZonedDateTime deletedAt) {
+        this.deletedAt = deletedAt;
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,122 @@
+package com.upgrad.quora.service.business;
+
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class HotQuestionRankingTest {
+
+    private static final long HALF_LIFE_MINUTES = 60;
+
+    private static final long HALF_LIFE_MILLIS = TimeUnit.MINUTES.toMillis(HALF_LIFE_MINUTES);
+
+    private static final long NOW = 1_500_000_000_000L;
+
+    private final HotQuestionRanking ranking = new HotQuestionRanking(HALF_LIFE_MINUTES);
+
+    //This test case passes when the score of an answer halves after every half-life.
+    @Test
+    public void scoreHalvesEveryHalfLife() {
+        ranking.answerCreated(1, NOW);
+        assertEquals(1.0, score(1, NOW), 1e-9);
+        assertEquals(0.5, score(1, NOW + HALF_LIFE_MILLIS), 1e-9);
+        assertEquals(0.25, score(1, NOW + 2 * HALF_LIFE_MILLIS), 1e-9);
+        assertEquals(1.0 / 1024, score(1, NOW + 10 * HALF_LIFE_MILLIS), 1e-9);
+    }
+
+    //This test case passes when the score of a question is the sum of the decayed weights of its answers.
+    @Test
+    public void answersAddUp() {
+        ranking.answerCreated(1, NOW - 2 * HALF_LIFE_MILLIS);
+        ranking.answerCreated(1, NOW - HALF_LIFE_MILLIS);
+        ranking.answerCreated(1, NOW);
+        assertEquals(1.75, score(1, NOW), 1e-9);
+    }
+
+    //This test case passes when a question answered recently ranks above one answered more often but longer ago, and the order holds as time passes.
+    @Test
+    public void recentAnswersRankFirst() {
+        for (int i = 0; i < 3; i++) {
+            ranking.answerCreated(1, NOW - 2 * HALF_LIFE_MILLIS);
+        }
+        ranking.answerCreated(2, NOW);
+        assertEquals(Arrays.asList(2, 1), ids(ranking.getHotQuestions(10, NOW)));
+        assertEquals(Arrays.asList(2, 1), ids(ranking.getHotQuestions(10, NOW + 100 * HALF_LIFE_MILLIS)));
+        ranking.answerCreated(1, NOW);
+        assertEquals(Arrays.asList(1, 2), ids(ranking.getHotQuestions(10, NOW)));
+    }
+
+    //This test case passes when the newer question ranks first on equal scores, and no more questions than the limit are returned.
+    @Test
+    public void tiesAndLimit() {
+        for (int id = 1; id <= 5; id++) {
+            ranking.answerCreated(id, NOW);
+        }
+        assertEquals(Arrays.asList(5, 4, 3), ids(ranking.getHotQuestions(3, NOW)));
+    }
+
+    //This test case passes when a deleted question is no longer ranked.
+    @Test
+    public void deletedQuestionIsNotRanked() {
+        ranking.answerCreated(1, NOW);
+        ranking.answerCreated(2, NOW);
+        ranking.questionsDeleted(Collections.singletonList(2));
+        assertEquals(Collections.singletonList(1), ids(ranking.getHotQuestions(10, NOW)));
+    }
+
+    //This test case passes when answers posted at once from many threads are all counted, and every question keeps a single place in the ranking.
+    @Test
+    public void concurrentAnswersAreAllCounted() throws Exception {
+        final int threads = 8;
+        final int answersPerThread = 5000;
+        final int questions = 4;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final CountDownLatch start = new CountDownLatch(1);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < answersPerThread; i++) {
+                        ranking.answerCreated(1 + i % questions, NOW);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        final Map<Integer, Double> hotQuestions = ranking.getHotQuestions(10, NOW);
+        assertEquals(questions, hotQuestions.size());
+        for (final double score : hotQuestions.values()) {
+            // The logarithms of the scores round a little, far less than the weight of a single lost answer.
+            assertEquals((double) threads * answersPerThread / questions, score, 1e-3);
+        }
+        assertEquals(questions, ((Collection<?>) ReflectionTestUtils.getField(ranking, "ranking")).size());
+    }
+
+    private double score(final int questionId, final long nowMillis) {
+        return ranking.getHotQuestions(10, nowMillis).get(questionId);
+    }
+
+    private static List<Integer> ids(final Map<Integer, Double> hotQuestions) {
+        return new ArrayList<>(hotQuestions.keySet());
+    }
+}
@@ -0,0 +1,143 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.service.entity.QuestionEntity;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class QuestionDuplicateIndexTest {
+
+    private static final int HASHES = 48;
+
+    private static final double CHANCE = 1.0 / 256;
+
+    private static final String[] WORDS = {"how", "what", "why", "database", "index", "query", "java", "spring", "token",
+            "cache", "latency", "replica", "schema", "thread", "pool", "json", "load", "test", "scale", "plan", "heap",
+            "stack", "lock", "queue", "batch", "stream", "socket", "kernel", "page", "disk"};
+
+    //This test case passes when a question which differs only in its case and punctuation is found, even at a threshold of 1.
+    @Test
+    public void identicalWordsAreFound() {
+        final QuestionDuplicateIndex index = newIndex(1.0);
+        add(index, 7, "How does a database index work?");
+        assertEquals(Integer.valueOf(7), index.findDuplicate("how DOES a database, index work"));
+    }
+
+    //This test case passes when a question sharing no word, or without any word, is not found.
+    @Test
+    public void unrelatedQuestionIsNotFound() {
+        final QuestionDuplicateIndex index = newIndex(0.8);
+        add(index, 1, "How does a database index work?");
+        assertNull(index.findDuplicate("Which telescope suits a beginner astronomer"));
+        assertNull(index.findDuplicate("?!"));
+    }
+
+    //This test case passes when a pair is found at a threshold equal to its estimated similarity, and not at the next threshold up.
+    @Test
+    public void thresholdIsInclusive() {
+        final String original = "how does the query planner choose an index for a join of two large tables";
+        final String changed = "how does the query planner choose an index for a join of three large tables";
+        int equal = HASHES;
+        while (equal > 0 && !isFound(estimate(equal), original, changed)) {
+            equal--;
+        }
+        assertTrue(equal > 0 && equal < HASHES);
+        assertTrue(isFound(estimate(equal), original, changed));
+        assertTrue(!isFound(Math.nextUp(estimate(equal)), original, changed));
+        assertTrue(!isFound(estimate(equal + 1), original, changed));
+    }
+
+    //This test case passes when nearly identical questions, a Jaccard similarity of 0.9, are found at the threshold of 0.8 almost every time.
+    @Test
+    public void nearlyIdenticalQuestionsAreFound() {
+        final Random random = new Random(42);
+        int found = 0;
+        for (int i = 0; i < 200; i++) {
+            final String[] words = sentence(random, 20);
+            final String original = String.join(" ", words);
+            words[words.length - 1] = "different";
+            if (isFound(0.8, original, String.join(" ", words))) {
+                found++;
+            }
+        }
+        assertTrue("found " + found + " of 200", found >= 180);
+    }
+
+    //This test case passes when questions sharing only a third of their word pairs are almost never found at the threshold of 0.8.
+    @Test
+    public void looselyRelatedQuestionsAreNotFound() {
+        final Random random = new Random(43);
+        int found = 0;
+        for (int i = 0; i < 200; i++) {
+            final String[] words = sentence(random, 20);
+            final String original = String.join(" ", words);
+            for (int j = 10; j < words.length; j++) {
+                words[j] = words[j] + "x";
+            }
+            if (isFound(0.8, original, String.join(" ", words))) {
+                found++;
+            }
+        }
+        assertTrue("found " + found + " of 200", found <= 2);
+    }
+
+    //This test case passes when the most similar of several candidates is the one found.
+    @Test
+    public void mostSimilarIsFound() {
+        final QuestionDuplicateIndex index = newIndex(0.5);
+        add(index, 1, "how does the query planner choose an index for a join of two large tables today");
+        add(index, 2, "how does the query planner choose an index for a join of two large tables");
+        assertEquals(Integer.valueOf(2), index.findDuplicate("how does the query planner choose an index for a join of two large tables"));
+    }
+
+    //This test case passes when a deleted question, or one found missing from the database, is no longer found.
+    @Test
+    public void removedQuestionIsNotFound() {
+        final QuestionDuplicateIndex index = newIndex(0.8);
+        add(index, 1, "How does a database index work?");
+        add(index, 2, "Why is my thread pool starved?");
+        index.questionsDeleted(Collections.singletonList(1));
+        assertNull(index.findDuplicate("How does a database index work?"));
+        index.questionMissing(2);
+        assertNull(index.findDuplicate("Why is my thread pool starved?"));
+    }
+
+    // The estimated similarity of two signatures with this many equal hashes, corrected for the hashes equal by chance.
+    private static double estimate(final int equal) {
+        return ((double) equal / HASHES - CHANCE) / (1 - CHANCE);
+    }
+
+    private static boolean isFound(final double threshold, final String existing, final String posted) {
+        final QuestionDuplicateIndex index = newIndex(threshold);
+        add(index, 1, existing);
+        return index.findDuplicate(posted) != null;
+    }
+
+    private static QuestionDuplicateIndex newIndex(final double threshold) {
+        final QuestionDuplicateIndex index = new QuestionDuplicateIndex();
+        ReflectionTestUtils.setField(index, "threshold", threshold);
+        return index;
+    }
+
+    private static void add(final QuestionDuplicateIndex index, final int id, final String content) {
+        final QuestionEntity question = new QuestionEntity();
+        question.setId(id);
+        question.setUuid("q" + id);
+        question.setContent(content);
+        index.questionCreated(question);
+    }
+
+    private static String[] sentence(final Random random, final int length) {
+        final String[] words = new String[length];
+        for (int i = 0; i < length; i++) {
+            words[i] = WORDS[random.nextInt(WORDS.length)];
+        }
+        return words;
+    }
+}
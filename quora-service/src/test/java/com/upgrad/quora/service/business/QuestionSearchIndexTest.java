@@ -0,0 +1,101 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.service.dto.QuestionSearchResult;
+import com.upgrad.quora.service.entity.QuestionEntity;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class QuestionSearchIndexTest {
+
+    private final QuestionSearchIndex index = new QuestionSearchIndex();
+
+    //This test case passes when the question holding the searched word more often is ranked first, and a question without it is not found.
+    @Test
+    public void moreOccurrencesRankFirst() {
+        add(1, "java spring boot");
+        add(2, "java java spring boot");
+        add(3, "python flask web app");
+        assertEquals(Arrays.asList("q2", "q1"), search("java", 10));
+    }
+
+    //This test case passes when the question holding the rarer of the searched words is ranked above the one holding the common word.
+    @Test
+    public void rarerWordWeighsMore() {
+        add(1, "how to use java");
+        add(2, "how to use spring");
+        add(3, "how to use python");
+        add(4, "how to use ruby");
+        final List<QuestionSearchResult> results = index.search("how java", 10);
+        assertEquals("q1", results.get(0).getUuid());
+        assertEquals(4, results.size());
+        assertTrue(results.get(0).getScore() > results.get(1).getScore());
+    }
+
+    //This test case passes when, with the word appearing once in each, the shorter question is ranked above the longer one.
+    @Test
+    public void shorterQuestionRanksFirst() {
+        add(1, "java with a very long question around it");
+        add(2, "java question");
+        add(3, "unrelated words only");
+        assertEquals(Arrays.asList("q2", "q1"), search("java", 10));
+    }
+
+    //This test case passes when questions with equal scores are ranked newest first, including the one kept when the limit cuts between them.
+    @Test
+    public void newerQuestionWinsTies() {
+        add(1, "what is a database index");
+        add(2, "what is a database index");
+        add(3, "what is a database index");
+        assertEquals(Arrays.asList("q3", "q2", "q1"), search("index", 10));
+        assertEquals(Collections.singletonList("q3"), search("index", 1));
+    }
+
+    //This test case passes when the search is not told apart by the case or the punctuation of the query.
+    @Test
+    public void queryIsTokenized() {
+        add(1, "Database Index?");
+        assertEquals(Collections.singletonList("q1"), search("DATABASE, index!", 10));
+        assertEquals(Collections.emptyList(), search("?!", 10));
+    }
+
+    //This test case passes when an edited question is found by its new words only, and a deleted question is no longer found.
+    @Test
+    public void editedAndDeletedQuestionsAreUpdated() {
+        add(1, "java question");
+        add(2, "java answer");
+        final QuestionEntity edited = question(1, "kotlin question");
+        index.questionEdited(edited);
+        assertEquals(Collections.singletonList("q2"), search("java", 10));
+        assertEquals(Collections.singletonList("q1"), search("kotlin", 10));
+        index.questionsDeleted(Collections.singletonList(2));
+        assertEquals(Collections.emptyList(), search("java", 10));
+        assertEquals(Collections.singletonList("q1"), search("question", 10));
+    }
+
+    private void add(final int id, final String content) {
+        index.questionCreated(question(id, content));
+    }
+
+    private List<String> search(final String query, final int limit) {
+        final List<String> uuids = new ArrayList<>();
+        for (final QuestionSearchResult result : index.search(query, limit)) {
+            uuids.add(result.getUuid());
+        }
+        return uuids;
+    }
+
+    private static QuestionEntity question(final int id, final String content) {
+        final QuestionEntity question = new QuestionEntity();
+        question.setId(id);
+        question.setUuid("q" + id);
+        question.setContent(content);
+        return question;
+    }
+}
@@ -0,0 +1,150 @@
+package com.upgrad.quora.service.business;
+
+import com.upgrad.quora.service.dto.QuestionSuggestion;
+import com.upgrad.quora.service.entity.QuestionEntity;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class QuestionSuggestionIndexTest {
+
+    private QuestionSuggestionIndex index = new QuestionSuggestionIndex(3, 64);
+
+    //This test case passes when a prefix ending inside the label of a node, at a node, or past the end of every key is matched as it should.
+    @Test
+    public void prefixIsMatchedAcrossLabels() {
+        add(1, "database index");
+        add(2, "database schema");
+        assertEquals(Arrays.asList("q2", "q1"), suggest("d"));
+        assertEquals(Arrays.asList("q2", "q1"), suggest("database "));
+        assertEquals(Collections.singletonList("q1"), suggest("database i"));
+        assertEquals(Collections.singletonList("q2"), suggest("database schema"));
+        assertEquals(Collections.emptyList(), suggest("database schemas"));
+        assertEquals(Collections.emptyList(), suggest("datx"));
+        assertEquals(Collections.emptyList(), suggest("x"));
+    }
+
+    //This test case passes when a prefix without any word suggests nothing.
+    @Test
+    public void emptyPrefixSuggestsNothing() {
+        add(1, "database index");
+        assertEquals(Collections.emptyList(), suggest(""));
+        assertEquals(Collections.emptyList(), suggest("?! "));
+    }
+
+    //This test case passes when the prefix is matched whatever its case and punctuation, and a space after the last word stops it matching a longer word.
+    @Test
+    public void prefixIsNormalized() {
+        add(1, "Java: what is it?");
+        add(2, "JavaScript closures");
+        assertEquals(Arrays.asList("q2", "q1"), suggest("JAVA"));
+        assertEquals(Collections.singletonList("q1"), suggest("java "));
+        assertEquals(Collections.singletonList("q1"), suggest("java,  WHAT"));
+    }
+
+    //This test case passes when the key of one question is the start of the key of another, and both are suggested.
+    @Test
+    public void keyEndingAtInnerNode() {
+        add(1, "java");
+        add(2, "java spring");
+        add(3, "java spring boot");
+        assertEquals(Arrays.asList("q3", "q2", "q1"), suggest("java"));
+        assertEquals(Arrays.asList("q3", "q2"), suggest("java s"));
+    }
+
+    //This test case passes when the newest questions are suggested first, and no more than the suggestions kept per prefix or the limit.
+    @Test
+    public void newestFirstWithinLimit() {
+        for (int id = 1; id <= 5; id++) {
+            add(id, "how to question " + id);
+        }
+        assertEquals(Arrays.asList("q5", "q4", "q3"), suggest("how"));
+        assertEquals(Collections.singletonList("q5"), names(index.suggest("how", 1)));
+    }
+
+    //This test case passes when a deleted question is no longer suggested, and the nodes merged on its removal still lead to the other questions.
+    @Test
+    public void deletedQuestionIsRemoved() {
+        add(1, "abc");
+        add(2, "abd");
+        add(3, "abd");
+        index.questionsDeleted(Collections.singletonList(1));
+        assertEquals(Collections.emptyList(), suggest("abc"));
+        assertEquals(Arrays.asList("q3", "q2"), suggest("ab"));
+        index.questionsDeleted(Collections.singletonList(3));
+        assertEquals(Collections.singletonList("q2"), suggest("a"));
+        assertEquals(Collections.singletonList("q2"), suggest("abd"));
+        add(1, "abc");
+        assertEquals(Arrays.asList("q2", "q1"), suggest("ab"));
+    }
+
+    //This test case passes when a question deleted from the best suggestions of a prefix gives its place to an older question.
+    @Test
+    public void olderQuestionTakesPlaceOfDeleted() {
+        for (int id = 1; id <= 4; id++) {
+            add(id, "why question " + id);
+        }
+        index.questionsDeleted(Collections.singletonList(4));
+        assertEquals(Arrays.asList("q3", "q2", "q1"), suggest("why"));
+    }
+
+    //This test case passes when an edited question is suggested for its new content only.
+    @Test
+    public void editedQuestionIsMoved() {
+        add(1, "spring boot");
+        add(2, "spring data");
+        index.questionEdited(question(1, "hibernate cache"));
+        assertEquals(Collections.singletonList("q2"), suggest("spring"));
+        assertEquals(Collections.singletonList("q1"), suggest("hib"));
+    }
+
+    //This test case passes when only the start of a question is indexed, so a longer prefix is cut at the same length and still matches.
+    @Test
+    public void keysAreTruncated() {
+        index = new QuestionSuggestionIndex(3, 10);
+        add(1, "abcdefghij klm");
+        assertEquals(Collections.singletonList("q1"), suggest("abcdefghij xyz"));
+        assertEquals(Collections.emptyList(), suggest("abcdefghik"));
+    }
+
+    //This test case passes when a prefix ending inside a character of several UTF-8 bytes is matched at the byte.
+    @Test
+    public void multiByteCharacters() {
+        index = new QuestionSuggestionIndex(3, 3);
+        add(1, "\u00fcber alles");
+        add(2, "\u00fcbung");
+        add(3, "\u00f6l");
+        assertEquals(Arrays.asList("q2", "q1"), suggest("\u00fc"));
+        assertEquals(Arrays.asList("q2", "q1"), suggest("\u00fcb\u00e9"));
+        assertEquals(Collections.singletonList("q3"), suggest("\u00d6"));
+    }
+
+    private void add(final int id, final String content) {
+        index.questionCreated(question(id, content));
+    }
+
+    private List<String> suggest(final String prefix) {
+        return names(index.suggest(prefix, 10));
+    }
+
+    private static List<String> names(final List<QuestionSuggestion> suggestions) {
+        final List<String> uuids = new ArrayList<>();
+        for (final QuestionSuggestion suggestion : suggestions) {
+            uuids.add(suggestion.getUuid());
+        }
+        return uuids;
+    }
+
+    private static QuestionEntity question(final int id, final String content) {
+        final QuestionEntity question = new QuestionEntity();
+        question.setId(id);
+        question.setUuid("q" + id);
+        question.setContent(content);
+        return question;
+    }
+}
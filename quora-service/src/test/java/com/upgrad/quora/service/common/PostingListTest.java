@@ -0,0 +1,94 @@
+package com.upgrad.quora.service.common;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PostingListTest {
+
+    //This test case passes when the postings appended in order are read back in order, including ids and frequencies which take several bytes.
+    @Test
+    public void appendedPostingsAreReadBack() {
+        final PostingList postings = new PostingList();
+        postings.add(1, 2);
+        postings.add(5, 1);
+        postings.add(300, 200);
+        postings.add(Integer.MAX_VALUE, 70000);
+        assertEquals(4, postings.size());
+        assertEquals(Arrays.asList(1, 2, 5, 1, 300, 200, Integer.MAX_VALUE, 70000), read(postings));
+    }
+
+    //This test case passes when a posting added before the last one is put in its place in the order of the ids.
+    @Test
+    public void postingAddedOutOfOrderIsSorted() {
+        final PostingList postings = new PostingList();
+        postings.add(10, 1);
+        postings.add(20, 1);
+        postings.add(15, 3);
+        postings.add(2, 4);
+        assertEquals(Arrays.asList(2, 4, 10, 1, 15, 3, 20, 1), read(postings));
+    }
+
+    //This test case passes when the posting of a question which already has one is replaced rather than repeated.
+    @Test
+    public void postingAddedAgainIsReplaced() {
+        final PostingList postings = new PostingList();
+        postings.add(10, 1);
+        postings.add(20, 1);
+        postings.add(10, 5);
+        postings.add(20, 6);
+        assertEquals(2, postings.size());
+        assertEquals(Arrays.asList(10, 5, 20, 6), read(postings));
+    }
+
+    //This test case passes when a posting is removed, and removing a question without a posting changes nothing.
+    @Test
+    public void postingIsRemoved() {
+        final PostingList postings = new PostingList();
+        postings.add(1, 1);
+        postings.add(2, 2);
+        postings.add(3, 3);
+        assertTrue(postings.remove(2));
+        assertFalse(postings.remove(4));
+        assertEquals(Arrays.asList(1, 1, 3, 3), read(postings));
+        postings.add(4, 4);
+        assertEquals(Arrays.asList(1, 1, 3, 3, 4, 4), read(postings));
+    }
+
+    //This test case passes when the postings of several questions are removed at once.
+    @Test
+    public void postingsAreRemovedAtOnce() {
+        final PostingList postings = new PostingList();
+        for (int id = 1; id <= 5; id++) {
+            postings.add(id, id);
+        }
+        final BitSet ids = new BitSet();
+        ids.set(1);
+        ids.set(4);
+        ids.set(9);
+        assertTrue(postings.removeAll(ids));
+        assertFalse(postings.removeAll(ids));
+        assertEquals(Arrays.asList(2, 2, 3, 3, 5, 5), read(postings));
+        ids.set(2, 6);
+        assertTrue(postings.removeAll(ids));
+        assertEquals(0, postings.size());
+        assertFalse(postings.cursor().next());
+    }
+
+    private static List<Integer> read(final PostingList postings) {
+        final List<Integer> read = new ArrayList<>();
+        final PostingList.Cursor cursor = postings.cursor();
+        while (cursor.next()) {
+            read.add(cursor.id());
+            read.add(cursor.frequency());
+        }
+        return read;
+    }
+}
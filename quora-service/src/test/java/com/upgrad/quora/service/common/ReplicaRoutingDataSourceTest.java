@@ -0,0 +1,145 @@
+package com.upgrad.quora.service.common;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class ReplicaRoutingDataSourceTest {
+
+    private ReplicaRoutingDataSource dataSource;
+
+    @After
+    public void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clear();
+        }
+        ReplicaRoutingDataSource.unbindSession();
+        if (dataSource != null) {
+            dataSource.close();
+        }
+    }
+
+    //This test case passes when a read-only transaction is sent to a healthy replica.
+    @Test
+    public void readOnlyTransactionGoesToReplica() {
+        dataSource = newDataSource(60000, true);
+        beginTransaction(true);
+        assertSame(dataSource.getReplicas().get(0), dataSource.getReplica());
+    }
+
+    //This test case passes when a read-write transaction is sent to the primary.
+    @Test
+    public void readWriteTransactionGoesToPrimary() {
+        dataSource = newDataSource(60000, true);
+        beginTransaction(false);
+        assertNull(dataSource.getReplica());
+    }
+
+    //This test case passes when a connection taken outside of any transaction is sent to the primary.
+    @Test
+    public void noTransactionGoesToPrimary() {
+        dataSource = newDataSource(60000, true);
+        assertNull(dataSource.getReplica());
+    }
+
+    //This test case passes when the replicas are taken in turn, skipping the unhealthy ones.
+    @Test
+    public void unhealthyReplicaIsSkipped() {
+        dataSource = newDataSource(60000, true, false, true);
+        final List<ReplicaRoutingDataSource.Replica> replicas = dataSource.getReplicas();
+        beginTransaction(true);
+        final Set<ReplicaRoutingDataSource.Replica> used = new HashSet<>();
+        for (int i = 0; i < 6; i++) {
+            used.add(dataSource.getReplica());
+        }
+        assertEquals(new HashSet<>(Arrays.asList(replicas.get(0), replicas.get(2))), used);
+    }
+
+    //This test case passes when a read-only transaction is sent to the primary because no replica is healthy.
+    @Test
+    public void noHealthyReplicaGoesToPrimary() {
+        dataSource = newDataSource(60000, false, false);
+        beginTransaction(true);
+        assertNull(dataSource.getReplica());
+    }
+
+    //This test case passes when the reads of a session which just committed a write are sent to the primary, and the reads of other sessions are not.
+    @Test
+    public void writingSessionReadsFromPrimary() {
+        dataSource = newDataSource(60000, true);
+        ReplicaRoutingDataSource.bindSession("writer");
+        beginTransaction(false);
+        assertNull(dataSource.getReplica());
+        commit();
+
+        beginTransaction(true);
+        assertNull(dataSource.getReplica());
+        ReplicaRoutingDataSource.bindSession("reader");
+        assertNotNull(dataSource.getReplica());
+    }
+
+    //This test case passes when a write which is rolled back does not send the reads of its session to the primary.
+    @Test
+    public void rolledBackWriteKeepsReadsOnReplica() {
+        dataSource = newDataSource(60000, true);
+        ReplicaRoutingDataSource.bindSession("writer");
+        beginTransaction(false);
+        dataSource.getReplica();
+        TransactionSynchronizationManager.clear();
+
+        beginTransaction(true);
+        assertNotNull(dataSource.getReplica());
+    }
+
+    //This test case passes when the reads of a writing session go back to the replicas once the read-your-writes window is over.
+    @Test
+    public void writingSessionWindowExpires() throws InterruptedException {
+        dataSource = newDataSource(50, true);
+        ReplicaRoutingDataSource.bindSession("writer");
+        beginTransaction(false);
+        dataSource.getReplica();
+        commit();
+
+        beginTransaction(true);
+        assertNull(dataSource.getReplica());
+        Thread.sleep(200);
+        assertNotNull(dataSource.getReplica());
+    }
+
+    // The replica pools are never started, their health is set directly instead of being checked.
+    private static ReplicaRoutingDataSource newDataSource(final long readYourWritesMillis, final boolean... healthy) {
+        final HikariDataSource[] replicas = new HikariDataSource[healthy.length];
+        for (int i = 0; i < replicas.length; i++) {
+            replicas[i] = new HikariDataSource();
+        }
+        final ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(new HikariDataSource(), Arrays.asList(replicas), 1000, readYourWritesMillis);
+        for (int i = 0; i < healthy.length; i++) {
+            dataSource.getReplicas().get(i).healthy = healthy[i];
+        }
+        return dataSource;
+    }
+
+    private static void beginTransaction(final boolean readOnly) {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(readOnly);
+    }
+
+    private static void commit() {
+        final List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clear();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+    }
+}